@@ -0,0 +1,44 @@
+package ru.javaops.cloudjava.reviewservice.benchmark;
+
+import ru.javaops.cloudjava.reviewservice.storage.model.MenuRatingInfo;
+import ru.javaops.cloudjava.reviewservice.storage.model.Review;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+final class BenchmarkData {
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 3, 14, 10, 23, 54);
+
+    private BenchmarkData() {
+    }
+
+    static List<Review> reviews(int size) {
+        List<Review> reviews = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            reviews.add(Review.builder()
+                    .id((long) i)
+                    .menuId(1L)
+                    .createdBy("User" + i)
+                    .comment("Comment about the dish number " + i)
+                    .rate(i % 5 + 1)
+                    .createdAt(CREATED_AT.plusMinutes(i))
+                    .build());
+        }
+        return reviews;
+    }
+
+    static Set<Long> menuIds(int size) {
+        Set<Long> menuIds = new LinkedHashSet<>();
+        for (long i = 1; i <= size; i++) {
+            menuIds.add(i);
+        }
+        return menuIds;
+    }
+
+    static MenuRatingInfo rating(Long menuId) {
+        return new MenuRatingInfo(menuId, 0.75f, 4.5f);
+    }
+}
@@ -0,0 +1,63 @@
+package ru.javaops.cloudjava.reviewservice.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.javaops.cloudjava.reviewservice.dto.GetRatingsRequest;
+import ru.javaops.cloudjava.reviewservice.dto.RatingsResponse;
+import ru.javaops.cloudjava.reviewservice.service.cache.MenuRatingCache;
+import ru.javaops.cloudjava.reviewservice.service.cache.MenuRatingReader;
+import ru.javaops.cloudjava.reviewservice.service.impl.RatingServiceImpl;
+import ru.javaops.cloudjava.reviewservice.storage.model.MenuRatingInfo;
+import ru.javaops.cloudjava.reviewservice.storage.repositories.RatingRepository;
+import ru.javaops.cloudjava.reviewservice.util.SingleFlight;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сборка ответа getRatingsOfMenus без обращения к БД: репозиторий подменен заглушкой,
+ * возвращающей рейтинги для половины запрошенных блюд, остальные получают рейтинг по умолчанию.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RatingServiceBenchmark {
+
+    @Param({"10", "100"})
+    private int size;
+
+    @Param({"false", "true"})
+    private boolean cached;
+
+    private RatingServiceImpl ratingService;
+    private GetRatingsRequest request;
+
+    @Setup
+    public void setUp() {
+        var menuIds = BenchmarkData.menuIds(size);
+        List<MenuRatingInfo> ratings = menuIds.stream()
+                .filter(menuId -> menuId % 2 == 0)
+                .map(BenchmarkData::rating)
+                .toList();
+        var repository = (RatingRepository) Proxy.newProxyInstance(
+                RatingRepository.class.getClassLoader(),
+                new Class<?>[]{RatingRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findRatingInfosByMenuIdIn")) {
+                        return ratings;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        var cache = new MenuRatingCache(cached ? 10_000 : 0, Duration.ofHours(1));
+        ratingService = new RatingServiceImpl(repository, null, new MenuRatingReader(cache), new SingleFlight<>("menuRating"), null);
+        request = GetRatingsRequest.builder()
+                .menuIds(menuIds)
+                .build();
+    }
+
+    @Benchmark
+    public RatingsResponse getRatingsOfMenus() {
+        return ratingService.getRatingsOfMenus(request);
+    }
+}
@@ -0,0 +1,32 @@
+package ru.javaops.cloudjava.reviewservice.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.javaops.cloudjava.reviewservice.dto.ReviewResponse;
+import ru.javaops.cloudjava.reviewservice.mapper.ReviewMapper;
+import ru.javaops.cloudjava.reviewservice.mapper.ReviewMapperImpl;
+import ru.javaops.cloudjava.reviewservice.storage.model.Review;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ReviewMapperBenchmark {
+
+    @Param({"10", "100"})
+    private int size;
+
+    private final ReviewMapper mapper = new ReviewMapperImpl();
+    private List<Review> reviews;
+
+    @Setup
+    public void setUp() {
+        reviews = BenchmarkData.reviews(size);
+    }
+
+    @Benchmark
+    public List<ReviewResponse> toReviewResponseList() {
+        return mapper.toReviewResponseList(reviews);
+    }
+}
@@ -0,0 +1,45 @@
+package ru.javaops.cloudjava.reviewservice.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.*;
+import ru.javaops.cloudjava.reviewservice.dto.RatedReviewsResponse;
+import ru.javaops.cloudjava.reviewservice.mapper.ReviewMapperImpl;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация ответа GET /v1/reviews/menu-item/{menuId}. ObjectMapper настроен так же, как в Spring Boot:
+ * подключены модули из classpath (в том числе JavaTimeModule), даты пишутся строками.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SerializationBenchmark {
+
+    @Param({"10", "100"})
+    private int size;
+
+    private ObjectWriter writer;
+    private RatedReviewsResponse response;
+
+    @Setup
+    public void setUp() {
+        writer = JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build()
+                .writerFor(RatedReviewsResponse.class);
+        response = RatedReviewsResponse.builder()
+                .reviews(new ReviewMapperImpl().toReviewResponseList(BenchmarkData.reviews(size)))
+                .menuRating(BenchmarkData.rating(1L))
+                .build();
+    }
+
+    @Benchmark
+    public byte[] ratedReviewsResponse() throws JsonProcessingException {
+        return writer.writeValueAsBytes(response);
+    }
+}
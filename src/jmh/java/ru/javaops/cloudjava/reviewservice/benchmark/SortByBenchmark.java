@@ -0,0 +1,20 @@
+package ru.javaops.cloudjava.reviewservice.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.javaops.cloudjava.reviewservice.dto.SortBy;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SortByBenchmark {
+
+    @Param({"date_asc", "DATE_DESC"})
+    private String value;
+
+    @Benchmark
+    public SortBy fromString() {
+        return SortBy.fromString(value);
+    }
+}
@@ -0,0 +1,26 @@
+package ru.javaops.cloudjava.reviewservice.config;
+
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.javaops.cloudjava.reviewservice.service.cache.MenuRatingCache;
+import ru.javaops.cloudjava.reviewservice.service.cache.MenuRatingCacheMetrics;
+
+import java.time.Duration;
+
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    public MenuRatingCache menuRatingCache(@Value("${app.rating.cache.enabled:true}") boolean enabled,
+                                           @Value("${app.rating.cache.maximum-size:10000}") int maximumSize,
+                                           @Value("${app.rating.cache.ttl:30s}") Duration ttl) {
+        return new MenuRatingCache(enabled ? maximumSize : 0, ttl);
+    }
+
+    @Bean
+    public MenuRatingCacheMetrics menuRatingCacheMetrics(MenuRatingCache menuRatingCache) {
+        return new MenuRatingCacheMetrics(menuRatingCache, "menuRatings", Tags.empty());
+    }
+}
@@ -0,0 +1,101 @@
+package ru.javaops.cloudjava.reviewservice.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import ru.javaops.cloudjava.reviewservice.controller.ReadYourWritesFilter;
+import ru.javaops.cloudjava.reviewservice.storage.datasource.ReadYourWritesTracker;
+import ru.javaops.cloudjava.reviewservice.storage.datasource.ReplicaDataSource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Направление readOnly транзакций на реплики (app.datasource.replicas.enabled=true).
+ * <p>
+ * LazyConnectionDataSourceProxy откладывает получение соединения до первого запроса транзакции,
+ * когда уже известно, что она readOnly, и берет его из {@link ReplicaDataSource}.
+ * Остальные транзакции и запросы вне транзакций выполняются на основном сервере spring.datasource.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replicas.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(
+            @Value("${app.datasource.replicas.read-your-writes-window:5s}") Duration window) {
+        return new ReadYourWritesTracker(window);
+    }
+
+    /**
+     * Spring Boot применяет декоратор к applicationTaskExecutor, на котором Spring MVC выполняет
+     * асинхронные ответы: запись StreamingResponseBody при выгрузке отзывов читает с того же сервера, что и запрос.
+     */
+    @Bean
+    public TaskDecorator readYourWritesTaskDecorator(ReadYourWritesTracker readYourWritesTracker) {
+        return readYourWritesTracker::propagate;
+    }
+
+    @Bean
+    public ReplicaDataSource replicaDataSource(@Qualifier("primaryDataSource") HikariDataSource primary,
+                                               ReadYourWritesTracker readYourWritesTracker,
+                                               ObjectProvider<MeterRegistry> meterRegistry,
+                                               @Value("${app.datasource.replicas.urls}") List<String> urls,
+                                               @Value("${app.datasource.replicas.maximum-pool-size:12}") int maximumPoolSize,
+                                               @Value("${app.datasource.replicas.max-lag:10s}") Duration maxLag) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            var config = new HikariConfig();
+            // реплики наследуют учетные данные и настройки пула основного сервера
+            primary.copyStateTo(config);
+            config.setJdbcUrl(urls.get(i));
+            config.setPoolName("replica-" + i);
+            config.setMaximumPoolSize(maximumPoolSize);
+            config.setReadOnly(true);
+            // недоступная при старте реплика не мешает запуску сервиса, ее вернет проверка здоровья
+            config.setInitializationFailTimeout(-1);
+            meterRegistry.ifAvailable(registry -> config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+            replicas.add(new HikariDataSource(config));
+        }
+        return new ReplicaDataSource(primary, replicas, readYourWritesTracker, maxLag);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primary,
+                                 ReplicaDataSource replicaDataSource) {
+        var dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(ReadYourWritesTracker readYourWritesTracker) {
+        var registration = new FilterRegistrationBean<>(new ReadYourWritesFilter(readYourWritesTracker));
+        registration.addUrlPatterns("/v1/*");
+        return registration;
+    }
+}
@@ -0,0 +1,35 @@
+package ru.javaops.cloudjava.reviewservice.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.javaops.cloudjava.reviewservice.dto.MenuReviewsQuery;
+import ru.javaops.cloudjava.reviewservice.dto.RatedReviewsResponse;
+import ru.javaops.cloudjava.reviewservice.storage.datasource.ReadYourWritesTracker;
+import ru.javaops.cloudjava.reviewservice.storage.model.MenuRatingInfo;
+import ru.javaops.cloudjava.reviewservice.util.SingleFlight;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Объединение одновременных чтений популярного блюда. Метрики: singleflight.calls с тегами name и result.
+ */
+@Configuration
+public class SingleFlightConfig {
+
+    @Bean
+    public SingleFlight<Long, MenuRatingInfo> menuRatingSingleFlight(ObjectProvider<ReadYourWritesTracker> tracker) {
+        return new SingleFlight<>("menuRating", primaryRequired(tracker));
+    }
+
+    @Bean
+    public SingleFlight<MenuReviewsQuery, RatedReviewsResponse> menuReviewsSingleFlight(ObjectProvider<ReadYourWritesTracker> tracker) {
+        return new SingleFlight<>("menuReviews", primaryRequired(tracker));
+    }
+
+    // без реплик все чтения идут на основной сервер
+    private static BooleanSupplier primaryRequired(ObjectProvider<ReadYourWritesTracker> tracker) {
+        var readYourWritesTracker = tracker.getIfAvailable();
+        return readYourWritesTracker == null ? () -> false : readYourWritesTracker::isPrimaryRequired;
+    }
+}
@@ -0,0 +1,35 @@
+package ru.javaops.cloudjava.reviewservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.javaops.cloudjava.reviewservice.controller.ConcurrencyLimitFilter;
+
+import java.time.Duration;
+
+/**
+ * Настройки режима виртуальных потоков (spring.threads.virtual.enabled=true).
+ * Spring Boot сам переводит на виртуальные потоки обработчики Tomcat, @Async и @Scheduled задачи.
+ * <p>
+ * Режим выключен по умолчанию: выигрыш по пропускной способности не замерен. Перед включением
+ * сравните оба режима нагрузочным тестом ReviewServiceLoadTest.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadsConfig {
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            @Value("${app.virtual-threads.max-concurrent-requests:24}") int maxConcurrentRequests,
+            @Value("${app.virtual-threads.acquire-timeout:2s}") Duration acquireTimeout) {
+        var registration = new FilterRegistrationBean<>(new ConcurrencyLimitFilter(maxConcurrentRequests, acquireTimeout));
+        // запросы к actuator не ограничиваются, чтобы проверки здоровья отвечали и под нагрузкой
+        registration.addUrlPatterns("/v1/*");
+        return registration;
+    }
+}
@@ -0,0 +1,140 @@
+package ru.javaops.cloudjava.reviewservice.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import ru.javaops.cloudjava.reviewservice.dto.RatedReviewsResponse;
+import ru.javaops.cloudjava.reviewservice.dto.ReviewResponse;
+import ru.javaops.cloudjava.reviewservice.storage.model.MenuRatingInfo;
+
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Строгие ETag ответов с отзывами и рейтингами.
+ * <p>
+ * Отзыв после создания не меняется, поэтому его ETag строится из id и created_at. ETag рейтингов и отзывов
+ * к блюду строится из содержимого ответа: идентификаторов отзывов страницы и значений рейтингов. Он зависит
+ * только от данных в БД, поэтому ETag, выданный одним экземпляром сервиса, подтверждается другими.
+ * Ответы помечаются no-cache: клиенты и CDN хранят их, но перед использованием подтверждают запросом с If-None-Match.
+ * <p>
+ * ETag рейтингов проверяется по рейтингам из кэша, поэтому пока они в кэше, ответ 304 не требует запроса к БД.
+ * Для отзывов проверка без БД не выполняется: ETag отзыва сверяется с прочитанным отзывом, чтобы не отвечать 304
+ * на подделанный ETag и вернуть 404 для несуществующего отзыва, а страница отзывов к блюду меняется раньше ratings, если
+ * рейтинги обновляются отложенно (режимы write-behind и outbox), поэтому ни кэш рейтингов, ни
+ * {@code ratings.change_version} не подходят как версия страницы.
+ */
+final class ETags {
+    private static final String REVIEW_PREFIX = "\"review-";
+    private static final String VERSION_PREFIX = "\"v-";
+
+    private ETags() {
+    }
+
+    static String review(ReviewResponse review) {
+        var createdAt = review.getCreatedAt();
+        long micros = createdAt.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + createdAt.getNano() / 1_000;
+        return REVIEW_PREFIX + review.getId() + "-" + Long.toHexString(micros) + "\"";
+    }
+
+    /**
+     * ETag рейтингов блюд, не зависящий от порядка рейтингов в ответе.
+     */
+    static String ratings(Collection<MenuRatingInfo> ratings) {
+        long sum = 0;
+        for (MenuRatingInfo rating : ratings) {
+            sum += hash(rating);
+        }
+        return versioned(mix(sum));
+    }
+
+    /**
+     * ETag страницы отзывов к блюду. Отзывы не меняются после создания, поэтому страницу определяют их id.
+     */
+    static String ratedReviews(RatedReviewsResponse response) {
+        long hash = hash(response.getMenuRating());
+        for (ReviewResponse review : response.getReviews()) {
+            hash = mix(hash ^ review.getId());
+        }
+        return versioned(hash);
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        return tags(ifNoneMatch).anyMatch(etag::equals);
+    }
+
+    /**
+     * Ответ 304 без тела, если клиент передал в If-None-Match текущий ETag, иначе ответ 200 с телом.
+     */
+    static <T> ResponseEntity<T> conditional(String ifNoneMatch, String etag, T body) {
+        return matches(ifNoneMatch, etag) ? notModified(etag) : ok(etag, body);
+    }
+
+    /**
+     * Вариант {@link #conditional(String, String, Object)} для обработчиков реактивного стека.
+     * Заголовки headers добавляются и к ответу 304.
+     */
+    static Mono<ServerResponse> conditional(ServerRequest request, String etag, Object body, Consumer<HttpHeaders> headers) {
+        if (matches(request.headers().firstHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            return ServerResponse.status(HttpStatus.NOT_MODIFIED)
+                    .headers(headers)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ServerResponse.ok()
+                .headers(headers)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .bodyValue(body);
+    }
+
+    private static <T> ResponseEntity<T> ok(String etag, T body) {
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(body);
+    }
+
+    private static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .build();
+    }
+
+    private static String versioned(long fingerprint) {
+        return VERSION_PREFIX + Long.toHexString(fingerprint) + "\"";
+    }
+
+    private static long hash(MenuRatingInfo rating) {
+        long hash = mix(rating.getMenuId());
+        hash = mix(hash ^ Objects.hashCode(rating.getWilsonScore()));
+        return mix(hash ^ ((long) Objects.hashCode(rating.getAvgStars()) << Integer.SIZE));
+    }
+
+    // финализатор SplitMix64
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    // для If-None-Match ETag сравниваются без учета признака W/
+    private static Stream<String> tags(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return Stream.empty();
+        }
+        return Arrays.stream(ifNoneMatch.split(","))
+                .map(String::trim)
+                .map(tag -> tag.startsWith("W/") ? tag.substring(2) : tag);
+    }
+}
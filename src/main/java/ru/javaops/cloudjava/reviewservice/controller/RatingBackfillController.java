@@ -0,0 +1,69 @@
+package ru.javaops.cloudjava.reviewservice.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.bind.annotation.*;
+import ru.javaops.cloudjava.reviewservice.dto.RatingBackfillStatus;
+import ru.javaops.cloudjava.reviewservice.exception.ReviewServiceException;
+import ru.javaops.cloudjava.reviewservice.service.rating.RatingBackfillJob;
+
+@Tag(name = "RatingBackfillController", description = "REST API для пересчета рейтингов блюд.")
+@Slf4j
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RestController
+@RequestMapping("/v1/admin/ratings/backfill")
+@RequiredArgsConstructor
+public class RatingBackfillController {
+
+    private final RatingBackfillJob backfillJob;
+
+    @Operation(
+            summary = "${api.rating-backfill-start.summary}",
+            description = "${api.rating-backfill-start.description}"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "${api.response.backfillStarted}"),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "${api.response.backfillConflict}",
+                    content = @Content(
+                            schema = @Schema(implementation = ProblemDetail.class)
+                    ))
+    })
+    @PostMapping
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public RatingBackfillStatus startBackfill() {
+        log.info("Received POST request to start rating backfill");
+        backfillJob.start();
+        return getBackfillStatus();
+    }
+
+    @Operation(
+            summary = "${api.rating-backfill-get.summary}",
+            description = "${api.rating-backfill-get.description}"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "${api.response.backfillOk}"),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "${api.response.backfillNotFound}",
+                    content = @Content(
+                            schema = @Schema(implementation = ProblemDetail.class)
+                    ))
+    })
+    @GetMapping
+    public RatingBackfillStatus getBackfillStatus() {
+        return backfillJob.status()
+                .orElseThrow(() -> new ReviewServiceException("Rating backfill has not been started.",
+                        HttpStatus.NOT_FOUND));
+    }
+}
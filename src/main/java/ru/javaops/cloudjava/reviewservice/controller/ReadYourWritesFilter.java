@@ -0,0 +1,46 @@
+package ru.javaops.cloudjava.reviewservice.controller;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.javaops.cloudjava.reviewservice.storage.datasource.ReadYourWritesTracker;
+
+import java.io.IOException;
+
+/**
+ * Отмечает запросы на запись пользователя из заголовка X-User-Name и направляет его последующие чтения
+ * на основной сервер, пока не истечет окно read-your-writes.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    private final ReadYourWritesTracker tracker;
+
+    public ReadYourWritesFilter(ReadYourWritesTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String username = request.getHeader(ReviewController.USER_HEADER);
+        boolean primaryRequired = tracker.beginRequest(username);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (primaryRequired) {
+                tracker.endRequest();
+            }
+            if (username != null && isWrite(request)) {
+                tracker.recordWrite(username);
+            }
+        }
+    }
+
+    private static boolean isWrite(HttpServletRequest request) {
+        var method = HttpMethod.valueOf(request.getMethod());
+        return method != HttpMethod.GET && method != HttpMethod.HEAD && method != HttpMethod.OPTIONS;
+    }
+}
@@ -6,38 +6,77 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.javaops.cloudjava.reviewservice.dto.*;
+import ru.javaops.cloudjava.reviewservice.exception.ReviewServiceException;
 import ru.javaops.cloudjava.reviewservice.service.RatingService;
 import ru.javaops.cloudjava.reviewservice.service.ReviewService;
+import ru.javaops.cloudjava.reviewservice.service.rating.RatingStreamPublisher;
+import ru.javaops.cloudjava.reviewservice.storage.model.MenuRatingInfo;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static ru.javaops.cloudjava.reviewservice.exception.GlobalExceptionHandler.createProblemDetail;
 
 @Tag(name = "ReviewController", description = "REST API для работы с отзывами.")
 @Slf4j
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RestController
 @RequestMapping("/v1/reviews")
 @RequiredArgsConstructor
 public class ReviewController {
     public static final String USER_HEADER = "X-User-Name";
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final int TOP_RATED_MAX_SIZE = 100;
+    public static final int RATING_CHANGES_MAX_SIZE = 1000;
+    public static final int RATINGS_MAX_MENUS = 100;
+    public static final int RATING_STREAM_MAX_MENUS = 100;
+    public static final String RATING_EVENT = "rating";
+    public static final String DUPLICATE_REVIEW_MESSAGE =
+            "Failed to create Review to menu with id %d by user with name: %s, because the user already placed Review to that menu.";
 
     private final ReviewService reviewService;
     private final RatingService ratingService;
+    private final ObjectMapper objectMapper;
+    private final RatingStreamPublisher ratingStreamPublisher;
 
     @Operation(
             summary = "${api.review-create.summary}",
             description = "${api.review-create.description}"
     )
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "201", description = "${api.response.createOk}"),
+            @ApiResponse(
+                    responseCode = "201",
+                    description = "${api.response.createOk}",
+                    content = @Content(
+                            schema = @Schema(implementation = ReviewResponse.class)
+                    )
+            ),
             @ApiResponse(
                     responseCode = "409",
                     description = "${api.response.createConflict}",
@@ -53,16 +92,44 @@ public class ReviewController {
                     )),
     })
     @PostMapping
-    @ResponseStatus(HttpStatus.CREATED)
-    public ReviewResponse createReview(@RequestBody
-                                       @Valid
-                                       CreateReviewRequest request,
-                                       @RequestHeader(USER_HEADER)
-                                       @NotBlank(message = "Имя пользователя не может быть пустым.")
-                                       String username) {
+    public ResponseEntity<?> createReview(@RequestBody
+                                          @Valid
+                                          CreateReviewRequest request,
+                                          @RequestHeader(USER_HEADER)
+                                          @NotBlank(message = "Имя пользователя не может быть пустым.")
+                                          String username,
+                                          HttpServletRequest servletRequest) {
         log.info("Received POST request to create Review: {} by user: {}",
                 request, username);
-        return reviewService.createReview(request, username);
+        return reviewService.createReview(request, username)
+                .<ResponseEntity<?>>map(review -> ResponseEntity.status(HttpStatus.CREATED).body(review))
+                .orElseGet(() -> {
+                    var msg = DUPLICATE_REVIEW_MESSAGE.formatted(request.getMenuId(), username);
+                    log.info(msg);
+                    return ResponseEntity.status(HttpStatus.CONFLICT).body(
+                            createProblemDetail(msg, HttpStatus.CONFLICT, servletRequest.getRequestURI()));
+                });
+    }
+
+    @Operation(
+            summary = "${api.reviews-batch-create.summary}",
+            description = "${api.reviews-batch-create.description}"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "${api.response.batchCreateOk}"),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "${api.response.batchCreateBadRequest}",
+                    content = @Content(
+                            schema = @Schema(implementation = ProblemDetail.class)
+                    )),
+    })
+    @PostMapping("/batch")
+    public CreateReviewsBatchResponse createReviews(@RequestBody
+                                                    @Valid
+                                                    CreateReviewsBatchRequest request) {
+        log.info("Received POST request to create batch of {} Reviews", request.getReviews().size());
+        return reviewService.createReviews(request);
     }
 
     @Operation(
@@ -71,6 +138,7 @@ public class ReviewController {
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "${api.response.getOk}"),
+            @ApiResponse(responseCode = "304", description = "${api.response.notModified}"),
             @ApiResponse(
                     responseCode = "404",
                     description = "${api.response.notFound}",
@@ -86,9 +154,14 @@ public class ReviewController {
                     )),
     })
     @GetMapping("/{id}")
-    public ReviewResponse getReview(@PathVariable("id") @Positive Long reviewId) {
+    public ResponseEntity<ReviewResponse> getReview(@PathVariable("id") @Positive Long reviewId,
+                                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                    String ifNoneMatch) {
         log.info("Received request to GET Review with id={}", reviewId);
-        return reviewService.getReview(reviewId);
+        // If-None-Match сравнивается с ETag прочитанного отзыва целиком: подделанный ETag с тем же id
+        // не должен давать 304, а для несуществующего отзыва нужно вернуть 404
+        var review = reviewService.getReview(reviewId);
+        return ETags.conditional(ifNoneMatch, ETags.review(review), review);
     }
 
     @Operation(
@@ -116,9 +189,17 @@ public class ReviewController {
                                                  int size,
                                                  @RequestParam(value = "sortBy", defaultValue = "date_asc")
                                                  @NotBlank(message = "Параметр сортировки не должен быть пустым.")
-                                                 String sortBy) {
+                                                 String sortBy,
+                                                 @RequestParam(value = "cursor", required = false)
+                                                 String cursor,
+                                                 HttpServletResponse response) {
         log.info("Received request to GET list of Reviews made by user: {}", username);
-        return reviewService.getReviewsOfUser(username, SortBy.fromString(sortBy), from, size);
+        var sort = SortBy.fromString(sortBy);
+        var reviews = cursor == null
+                ? reviewService.getReviewsOfUser(username, sort, from, size)
+                : reviewService.getReviewsOfUser(username, toCursor(cursor, sort), size);
+        setNextCursor(response, reviews, sort, size);
+        return reviews;
     }
 
     @Operation(
@@ -127,6 +208,7 @@ public class ReviewController {
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "${api.response.getMenuReviewsOk}"),
+            @ApiResponse(responseCode = "304", description = "${api.response.notModified}"),
             @ApiResponse(
                     responseCode = "400",
                     description = "${api.response.getMenuReviewsBadRequest}",
@@ -135,7 +217,7 @@ public class ReviewController {
                     ))
     })
     @GetMapping("/menu-item/{menuId}")
-    public RatedReviewsResponse getReviewsOfMenu(@PathVariable("menuId")
+    public ResponseEntity<RatedReviewsResponse> getReviewsOfMenu(@PathVariable("menuId")
                                                  @Positive(message = "Идентификатор блюда должен быть > 0.")
                                                  Long menuId,
                                                  @RequestParam(value = "from", defaultValue = "0")
@@ -146,14 +228,67 @@ public class ReviewController {
                                                  int size,
                                                  @RequestParam(value = "sortBy", defaultValue = "date_asc")
                                                  @NotBlank(message = "Параметр сортировки не должен быть пустым.")
-                                                 String sortBy) {
+                                                 String sortBy,
+                                                 @RequestParam(value = "cursor", required = false)
+                                                 String cursor,
+                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                 String ifNoneMatch,
+                                                 HttpServletResponse response) {
         log.info("Received request to GET list of reviews with ratings of menu with id={}", menuId);
-        return reviewService.getRatedReviewsForMenu(menuId, SortBy.fromString(sortBy), from, size);
+        var sort = SortBy.fromString(sortBy);
+        var cursorPosition = cursor == null ? null : toCursor(cursor, sort);
+        var ratedReviews = cursorPosition == null
+                ? reviewService.getRatedReviewsForMenu(menuId, sort, from, size)
+                : reviewService.getRatedReviewsForMenu(menuId, cursorPosition, size);
+        setNextCursor(response, ratedReviews.getReviews(), sort, size);
+        return ETags.conditional(ifNoneMatch, ETags.ratedReviews(ratedReviews), ratedReviews);
     }
 
     @Operation(
-            summary = "${api.ratings-get.summary}",
-            description = "${api.ratings-get.description}"
+            summary = "${api.menu-reviews-export.summary}",
+            description = "${api.menu-reviews-export.description}"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "${api.response.exportOk}"),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "${api.response.getMenuReviewsBadRequest}",
+                    content = @Content(
+                            schema = @Schema(implementation = ProblemDetail.class)
+                    ))
+    })
+    @GetMapping(value = "/menu-item/{menuId}/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportReviewsOfMenu(@PathVariable("menuId")
+                                                                     @Positive(message = "Идентификатор блюда должен быть > 0.")
+                                                                     Long menuId) {
+        log.info("Received request to export reviews of menu with id={}", menuId);
+        return ndjson(consumer -> reviewService.exportReviewsOfMenu(menuId, consumer));
+    }
+
+    @Operation(
+            summary = "${api.user-reviews-export.summary}",
+            description = "${api.user-reviews-export.description}"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "${api.response.exportOk}"),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "${api.response.getUserReviewsBadRequest}",
+                    content = @Content(
+                            schema = @Schema(implementation = ProblemDetail.class)
+                    ))
+    })
+    @GetMapping(value = "/my/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportReviewsOfUser(@RequestHeader(USER_HEADER)
+                                                                     @NotBlank(message = "Имя пользователя не может быть пустым.")
+                                                                     String username) {
+        log.info("Received request to export reviews made by user: {}", username);
+        return ndjson(consumer -> reviewService.exportReviewsOfUser(username, consumer));
+    }
+
+    @Operation(
+            summary = "${api.ratings-post.summary}",
+            description = "${api.ratings-post.description}"
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "${api.response.getRatingsOk}"),
@@ -169,4 +304,174 @@ public class ReviewController {
         log.info("Received POST request to get ratings of menus: {}", request.getMenuIds());
         return ratingService.getRatingsOfMenus(request);
     }
+
+    @Operation(
+            summary = "${api.ratings-get.summary}",
+            description = "${api.ratings-get.description}"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "${api.response.getRatingsOk}"),
+            @ApiResponse(responseCode = "304", description = "${api.response.notModified}"),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "${api.response.getRatingsBadRequest}",
+                    content = @Content(
+                            schema = @Schema(implementation = ProblemDetail.class)
+                    ))
+    })
+    @GetMapping("/ratings")
+    public ResponseEntity<RatingsResponse> getRatings(@RequestParam("menuIds")
+                                                      @Size(min = 1, max = RATINGS_MAX_MENUS,
+                                                              message = "Количество блюд должно быть от 1 до 100.")
+                                                      Set<Long> menuIds,
+                                                      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                      String ifNoneMatch) {
+        log.info("Received request to GET ratings of menus: {}", menuIds);
+        // рейтинги читаются через кэш, поэтому If-None-Match проверяется без запроса к БД, пока рейтинги в кэше
+        var ratings = ratingService.getRatingsOfMenus(GetRatingsRequest.builder().menuIds(menuIds).build());
+        return ETags.conditional(ifNoneMatch, ETags.ratings(ratings.getMenuRatings()), ratings);
+    }
+
+    @Operation(
+            summary = "${api.top-rated-get.summary}",
+            description = "${api.top-rated-get.description}"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "${api.response.getTopRatedOk}"),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "${api.response.getTopRatedBadRequest}",
+                    content = @Content(
+                            schema = @Schema(implementation = ProblemDetail.class)
+                    ))
+    })
+    @GetMapping("/ratings/top")
+    public List<RankedMenuRating> getTopRated(@RequestParam(value = "from", defaultValue = "0")
+                                              @PositiveOrZero(message = "Страница должна быть >= 0.")
+                                              int from,
+                                              @RequestParam(value = "size", defaultValue = "50")
+                                              @Positive(message = "Размер страницы должен быть > 0.")
+                                              @Max(value = TOP_RATED_MAX_SIZE, message = "Размер страницы должен быть <= 100.")
+                                              int size) {
+        log.info("Received request to GET top rated menus, page {} of size {}", from, size);
+        return ratingService.getTopRated(from, size);
+    }
+
+    @Operation(
+            summary = "${api.rating-changes-get.summary}",
+            description = "${api.rating-changes-get.description}"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "${api.response.getRatingChangesOk}"),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "${api.response.getRatingChangesBadRequest}",
+                    content = @Content(
+                            schema = @Schema(implementation = ProblemDetail.class)
+                    ))
+    })
+    @GetMapping("/ratings/changes")
+    public RatingChangesResponse getRatingChanges(@RequestParam(value = "cursor", required = false)
+                                                  String cursor,
+                                                  @RequestParam(value = "size", defaultValue = "500")
+                                                  @Positive(message = "Размер страницы должен быть > 0.")
+                                                  @Max(value = RATING_CHANGES_MAX_SIZE, message = "Размер страницы должен быть <= 1000.")
+                                                  int size) {
+        log.info("Received request to GET rating changes after cursor {}, page size {}", cursor, size);
+        var position = cursor == null ? RatingChangesCursor.START : RatingChangesCursor.decode(cursor);
+        return ratingService.getRatingChanges(position, size);
+    }
+
+    @Operation(
+            summary = "${api.rating-stream.summary}",
+            description = "${api.rating-stream.description}"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "${api.response.streamRatingsOk}"),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "${api.response.getRatingsBadRequest}",
+                    content = @Content(
+                            schema = @Schema(implementation = ProblemDetail.class)
+                    ))
+    })
+    @GetMapping(value = "/ratings/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamRatings(@RequestParam("menuIds")
+                                    @Size(min = 1, max = RATING_STREAM_MAX_MENUS,
+                                            message = "Количество блюд должно быть от 1 до 100.")
+                                    Set<Long> menuIds) {
+        log.info("Received request to stream ratings of menus: {}", menuIds);
+        var emitter = new SseEmitter(ratingStreamPublisher.timeout().toMillis());
+        // подписываемся до чтения текущих рейтингов, чтобы не пропустить изменения между ними
+        var unsubscribe = ratingStreamPublisher.subscribe(menuIds, ratings -> sendRatings(emitter, ratings),
+                emitter::complete);
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(ex -> unsubscribe.run());
+        var current = ratingService.getRatingsOfMenus(GetRatingsRequest.builder().menuIds(menuIds).build());
+        sendRatings(emitter, current.getMenuRatings());
+        return emitter;
+    }
+
+    /**
+     * Пишет каждый отзыв отдельной строкой JSON сразу после чтения из БД. Ответ отправляется клиенту
+     * по мере заполнения буфера сервлет-контейнера, поэтому память не зависит от количества отзывов.
+     */
+    private ResponseEntity<StreamingResponseBody> ndjson(Consumer<Consumer<ReviewResponse>> export) {
+        var writer = objectMapper.writerFor(ReviewResponse.class);
+        StreamingResponseBody body = out -> {
+            try {
+                export.accept(review -> writeLine(out, writer, review));
+            } catch (UncheckedIOException e) {
+                // клиент закрыл соединение: исключение прерывает чтение курсора и закрывает транзакцию
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    private static void writeLine(OutputStream out, ObjectWriter writer, ReviewResponse review) {
+        try {
+            out.write(writer.writeValueAsBytes(review));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void sendRatings(SseEmitter emitter, List<MenuRatingInfo> ratings) {
+        try {
+            for (MenuRatingInfo rating : ratings) {
+                emitter.send(SseEmitter.event()
+                        .name(RATING_EVENT)
+                        .data(rating, MediaType.APPLICATION_JSON));
+            }
+        } catch (IOException e) {
+            // клиент отключился: соединение закрывается, подписка отменяется в onError
+            emitter.completeWithError(e);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ReviewCursor toCursor(String cursor, SortBy sort) {
+        var decoded = ReviewCursor.decode(cursor);
+        if (decoded.sort() != sort) {
+            var msg = "Cursor was issued for sortBy=%s, but sortBy=%s was requested."
+                    .formatted(decoded.sort().name().toLowerCase(), sort.name().toLowerCase());
+            throw new ReviewServiceException(msg, HttpStatus.BAD_REQUEST);
+        }
+        return decoded;
+    }
+
+    /**
+     * Полная страница может быть не последней: отдаем курсор, с которого клиент продолжит чтение
+     * без OFFSET, независимо от того, как была получена текущая страница.
+     */
+    private static void setNextCursor(HttpServletResponse response, List<ReviewResponse> reviews, SortBy sort, int size) {
+        if (reviews.size() == size) {
+            response.setHeader(NEXT_CURSOR_HEADER, ReviewCursor.after(reviews.get(size - 1), sort).encode());
+        }
+    }
 }
\ No newline at end of file
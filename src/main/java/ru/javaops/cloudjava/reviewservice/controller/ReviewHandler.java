@@ -0,0 +1,416 @@
+package ru.javaops.cloudjava.reviewservice.controller;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import ru.javaops.cloudjava.reviewservice.dto.*;
+import ru.javaops.cloudjava.reviewservice.exception.ReviewServiceException;
+import ru.javaops.cloudjava.reviewservice.service.RatingService;
+import ru.javaops.cloudjava.reviewservice.service.ReactiveReviewService;
+import ru.javaops.cloudjava.reviewservice.service.rating.RatingStreamPublisher;
+import ru.javaops.cloudjava.reviewservice.storage.model.MenuRatingInfo;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static ru.javaops.cloudjava.reviewservice.controller.ReviewController.DUPLICATE_REVIEW_MESSAGE;
+import static ru.javaops.cloudjava.reviewservice.controller.ReviewController.NEXT_CURSOR_HEADER;
+import static ru.javaops.cloudjava.reviewservice.controller.ReviewController.RATING_CHANGES_MAX_SIZE;
+import static ru.javaops.cloudjava.reviewservice.controller.ReviewController.RATING_EVENT;
+import static ru.javaops.cloudjava.reviewservice.controller.ReviewController.RATINGS_MAX_MENUS;
+import static ru.javaops.cloudjava.reviewservice.controller.ReviewController.RATING_STREAM_MAX_MENUS;
+import static ru.javaops.cloudjava.reviewservice.controller.ReviewController.TOP_RATED_MAX_SIZE;
+import static ru.javaops.cloudjava.reviewservice.controller.ReviewController.USER_HEADER;
+
+/**
+ * Обработчики маршрутов {@link ReviewRouter}. Параметры запроса собираются в записи с теми же ограничениями
+ * Bean Validation, что и у параметров {@link ReviewController}, и проверяются {@link Validator}.
+ * Ошибки возвращаются в том же формате, что и {@link ru.javaops.cloudjava.reviewservice.exception.GlobalExceptionHandler}.
+ */
+@Slf4j
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReviewHandler {
+    private static final Consumer<HttpHeaders> NO_HEADERS = headers -> {
+    };
+
+    private final ReactiveReviewService reviewService;
+    private final RatingService ratingService;
+    private final Validator validator;
+    private final RatingStreamPublisher ratingStreamPublisher;
+
+    public Mono<ServerResponse> createReview(ServerRequest request) {
+        return handle(request, () -> {
+            var username = validate(new UserParams(request.headers().firstHeader(USER_HEADER))).username();
+            return body(request, CreateReviewRequest.class)
+                    .flatMap(body -> {
+                        log.info("Received POST request to create Review: {} by user: {}", body, username);
+                        return reviewService.createReview(body, username)
+                                .flatMap(review -> ServerResponse.status(HttpStatus.CREATED).bodyValue(review))
+                                .switchIfEmpty(Mono.defer(() -> {
+                                    var msg = DUPLICATE_REVIEW_MESSAGE.formatted(body.getMenuId(), username);
+                                    log.info(msg);
+                                    return problem(ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, msg), request);
+                                }));
+                    });
+        });
+    }
+
+    public Mono<ServerResponse> createReviews(ServerRequest request) {
+        return handle(request, () -> body(request, CreateReviewsBatchRequest.class)
+                .flatMap(body -> {
+                    log.info("Received POST request to create batch of {} Reviews", body.getReviews().size());
+                    return reviewService.createReviews(body);
+                })
+                .flatMap(response -> ServerResponse.ok().bodyValue(response)));
+    }
+
+    public Mono<ServerResponse> getReview(ServerRequest request) {
+        return handle(request, () -> {
+            var errors = new HashMap<String, String>();
+            var params = new ReviewIdParams(longParam(request.pathVariable("id"), "reviewId", errors));
+            validate(params, errors);
+            throwIfInvalid(errors);
+            var reviewId = params.reviewId();
+            log.info("Received request to GET Review with id={}", reviewId);
+            return reviewService.getReview(reviewId)
+                    .flatMap(review -> ETags.conditional(request, ETags.review(review), review, NO_HEADERS));
+        });
+    }
+
+    public Mono<ServerResponse> getReviewsOfUser(ServerRequest request) {
+        return handle(request, () -> {
+            var errors = new HashMap<String, String>();
+            var username = request.headers().firstHeader(USER_HEADER);
+            validate(new UserParams(username), errors);
+            var page = page(request, errors);
+            throwIfInvalid(errors);
+            log.info("Received request to GET list of Reviews made by user: {}", username);
+            var sort = SortBy.fromString(page.sortBy());
+            var reviews = page.cursor() == null
+                    ? reviewService.getReviewsOfUser(username, sort, page.from(), page.size())
+                    : reviewService.getReviewsOfUser(username, toCursor(page.cursor(), sort), page.size());
+            return reviews.flatMap(list -> ServerResponse.ok()
+                    .headers(nextCursor(list, sort, page.size()))
+                    .bodyValue(list));
+        });
+    }
+
+    public Mono<ServerResponse> getReviewsOfMenu(ServerRequest request) {
+        return handle(request, () -> {
+            var errors = new HashMap<String, String>();
+            var menuId = menuId(request, errors);
+            var page = page(request, errors);
+            throwIfInvalid(errors);
+            log.info("Received request to GET list of reviews with ratings of menu with id={}", menuId);
+            var sort = SortBy.fromString(page.sortBy());
+            var ratedReviews = page.cursor() == null
+                    ? reviewService.getRatedReviewsForMenu(menuId, sort, page.from(), page.size())
+                    : reviewService.getRatedReviewsForMenu(menuId, toCursor(page.cursor(), sort), page.size());
+            return ratedReviews.flatMap(response -> ETags.conditional(request, ETags.ratedReviews(response), response,
+                    nextCursor(response.getReviews(), sort, page.size())));
+        });
+    }
+
+    public Mono<ServerResponse> exportReviewsOfMenu(ServerRequest request) {
+        return handle(request, () -> {
+            var errors = new HashMap<String, String>();
+            var menuId = menuId(request, errors);
+            throwIfInvalid(errors);
+            log.info("Received request to export reviews of menu with id={}", menuId);
+            return ServerResponse.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(reviewService.exportReviewsOfMenu(menuId), ReviewResponse.class);
+        });
+    }
+
+    public Mono<ServerResponse> exportReviewsOfUser(ServerRequest request) {
+        return handle(request, () -> {
+            var username = validate(new UserParams(request.headers().firstHeader(USER_HEADER))).username();
+            log.info("Received request to export reviews made by user: {}", username);
+            return ServerResponse.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(reviewService.exportReviewsOfUser(username), ReviewResponse.class);
+        });
+    }
+
+    public Mono<ServerResponse> getRatingsOfMenus(ServerRequest request) {
+        return handle(request, () -> body(request, GetRatingsRequest.class)
+                .flatMap(body -> {
+                    log.info("Received POST request to get ratings of menus: {}", body.getMenuIds());
+                    return reviewService.getRatingsOfMenus(body);
+                })
+                .flatMap(response -> ServerResponse.ok().bodyValue(response)));
+    }
+
+    public Mono<ServerResponse> getRatings(ServerRequest request) {
+        return handle(request, () -> {
+            var errors = new HashMap<String, String>();
+            var params = new RatingsParams(menuIds(request, errors));
+            validate(params, errors);
+            throwIfInvalid(errors);
+            var menuIds = params.menuIds();
+            log.info("Received request to GET ratings of menus: {}", menuIds);
+            return reviewService.getRatingsOfMenus(GetRatingsRequest.builder().menuIds(menuIds).build())
+                    .flatMap(response -> ETags.conditional(request, ETags.ratings(response.getMenuRatings()), response,
+                            NO_HEADERS));
+        });
+    }
+
+    public Mono<ServerResponse> getTopRated(ServerRequest request) {
+        return handle(request, () -> {
+            var errors = new HashMap<String, String>();
+            var params = new TopRatedParams(intParam(request, "from", 0, errors), intParam(request, "size", 50, errors));
+            validate(params, errors);
+            throwIfInvalid(errors);
+            int from = params.from();
+            int size = params.size();
+            log.info("Received request to GET top rated menus, page {} of size {}", from, size);
+            // список хранится в памяти, чтение не блокирует поток event loop
+            return ServerResponse.ok().bodyValue(ratingService.getTopRated(from, size));
+        });
+    }
+
+    public Mono<ServerResponse> getRatingChanges(ServerRequest request) {
+        return handle(request, () -> {
+            var errors = new HashMap<String, String>();
+            var params = new RatingChangesParams(request.queryParam("cursor").orElse(null),
+                    intParam(request, "size", 500, errors));
+            validate(params, errors);
+            throwIfInvalid(errors);
+            var cursor = params.cursor();
+            int size = params.size();
+            log.info("Received request to GET rating changes after cursor {}, page size {}", cursor, size);
+            var position = cursor == null ? RatingChangesCursor.START : RatingChangesCursor.decode(cursor);
+            // изменения читаются через JDBC, поэтому запрос выполняется вне потоков event loop
+            return Mono.fromCallable(() -> ratingService.getRatingChanges(position, size))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .flatMap(response -> ServerResponse.ok().bodyValue(response));
+        });
+    }
+
+    public Mono<ServerResponse> streamRatings(ServerRequest request) {
+        return handle(request, () -> {
+            var errors = new HashMap<String, String>();
+            var params = new RatingStreamParams(menuIds(request, errors));
+            validate(params, errors);
+            throwIfInvalid(errors);
+            var menuIds = params.menuIds();
+            log.info("Received request to stream ratings of menus: {}", menuIds);
+            // каждое обновление содержит не больше menuIds.size() рейтингов: буфер вмещает столько же обновлений,
+            // сколько очередь подписчика, а клиент, который не успевает их принимать, отключается
+            Flux<MenuRatingInfo> changes = Flux.<MenuRatingInfo>create(sink -> {
+                        var unsubscribe = ratingStreamPublisher.subscribe(menuIds,
+                                ratings -> ratings.forEach(sink::next), sink::complete);
+                        sink.onDispose(unsubscribe::run);
+                    })
+                    .onBackpressureBuffer(ratingStreamPublisher.maxPendingUpdates() * menuIds.size());
+            Flux<MenuRatingInfo> current = reviewService
+                    .getRatingsOfMenus(GetRatingsRequest.builder().menuIds(menuIds).build())
+                    .flatMapIterable(RatingsResponse::getMenuRatings);
+            // merge подписывается на изменения до чтения текущих рейтингов, поэтому изменения между ними не теряются
+            var events = Flux.merge(changes, current)
+                    .map(rating -> ServerSentEvent.builder(rating).event(RATING_EVENT).build())
+                    .take(ratingStreamPublisher.timeout());
+            return ServerResponse.ok()
+                    .contentType(MediaType.TEXT_EVENT_STREAM)
+                    .body(BodyInserters.fromServerSentEvents(events));
+        });
+    }
+
+    private Mono<ServerResponse> handle(ServerRequest request, Supplier<Mono<ServerResponse>> handler) {
+        return Mono.defer(handler)
+                .onErrorResume(InvalidParamsException.class, ex -> {
+                    log.error("Intercepted invalid request parameters. Errors: {}", ex.getErrors());
+                    var pd = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, "Invalid request parameters.");
+                    pd.setProperty("invalid_params", ex.getErrors());
+                    return problem(pd, request);
+                })
+                .onErrorResume(ReviewServiceException.class, ex -> {
+                    log.error("Intercepted ReviewServiceException. Message: {}. Status: {}", ex.getMessage(), ex.getStatus());
+                    return problem(ProblemDetail.forStatusAndDetail(ex.getStatus(), ex.getMessage()), request);
+                })
+                .onErrorResume(ex -> ex instanceof ServerWebInputException || ex instanceof DecodingException, ex -> {
+                    log.error("Intercepted unreadable request. Message: {}", ex.getMessage());
+                    return problem(ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, ex.getMessage()), request);
+                });
+    }
+
+    private static Mono<ServerResponse> problem(ProblemDetail pd, ServerRequest request) {
+        pd.setProperty("timestamp", Instant.now());
+        pd.setInstance(URI.create(request.path()));
+        return ServerResponse.status(pd.getStatus())
+                .contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .bodyValue(pd);
+    }
+
+    private <T> Mono<T> body(ServerRequest request, Class<T> type) {
+        return request.bodyToMono(type)
+                .switchIfEmpty(Mono.error(() -> new ServerWebInputException("Request body is missing.")))
+                .map(this::validate);
+    }
+
+    private <T> T validate(T params) {
+        Map<String, String> errors = new HashMap<>();
+        validate(params, errors);
+        throwIfInvalid(errors);
+        return params;
+    }
+
+    private <T> void validate(T params, Map<String, String> errors) {
+        for (ConstraintViolation<T> violation : validator.validate(params)) {
+            errors.putIfAbsent(violation.getPropertyPath().toString(), violation.getMessage());
+        }
+    }
+
+    private Long menuId(ServerRequest request, Map<String, String> errors) {
+        var params = new MenuIdParams(longParam(request.pathVariable("menuId"), "menuId", errors));
+        validate(params, errors);
+        return params.menuId();
+    }
+
+    private PageParams page(ServerRequest request, Map<String, String> errors) {
+        var page = new PageParams(intParam(request, "from", 0, errors),
+                intParam(request, "size", 10, errors),
+                request.queryParam("sortBy").orElse("date_asc"),
+                request.queryParam("cursor").orElse(null));
+        validate(page, errors);
+        return page;
+    }
+
+    private static Set<Long> menuIds(ServerRequest request, Map<String, String> errors) {
+        Set<Long> menuIds = new HashSet<>();
+        for (String value : request.queryParams().getOrDefault("menuIds", List.of())) {
+            for (String id : value.split(",")) {
+                try {
+                    menuIds.add(Long.parseLong(id.trim()));
+                } catch (NumberFormatException e) {
+                    errors.put("menuIds", "Параметр должен быть списком целых чисел.");
+                    return menuIds;
+                }
+            }
+        }
+        return menuIds;
+    }
+
+    private static int intParam(ServerRequest request, String name, int defaultValue, Map<String, String> errors) {
+        var value = request.queryParam(name);
+        if (value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.get());
+        } catch (NumberFormatException e) {
+            errors.put(name, "Параметр должен быть целым числом.");
+            return defaultValue;
+        }
+    }
+
+    private static Long longParam(String value, String name, Map<String, String> errors) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            errors.put(name, "Параметр должен быть целым числом.");
+            return null;
+        }
+    }
+
+    private static void throwIfInvalid(Map<String, String> errors) {
+        if (!errors.isEmpty()) {
+            throw new InvalidParamsException(errors);
+        }
+    }
+
+    private static ReviewCursor toCursor(String cursor, SortBy sort) {
+        var decoded = ReviewCursor.decode(cursor);
+        if (decoded.sort() != sort) {
+            var msg = "Cursor was issued for sortBy=%s, but sortBy=%s was requested."
+                    .formatted(decoded.sort().name().toLowerCase(), sort.name().toLowerCase());
+            throw new ReviewServiceException(msg, HttpStatus.BAD_REQUEST);
+        }
+        return decoded;
+    }
+
+    private static Consumer<HttpHeaders> nextCursor(List<ReviewResponse> reviews, SortBy sort, int size) {
+        return headers -> {
+            if (reviews.size() == size) {
+                headers.set(NEXT_CURSOR_HEADER, ReviewCursor.after(reviews.get(size - 1), sort).encode());
+            }
+        };
+    }
+
+    // ограничения и имена параметров совпадают с параметрами методов ReviewController
+
+    private record UserParams(@NotBlank(message = "Имя пользователя не может быть пустым.") String username) {
+    }
+
+    private record ReviewIdParams(@Positive Long reviewId) {
+    }
+
+    private record MenuIdParams(@Positive(message = "Идентификатор блюда должен быть > 0.") Long menuId) {
+    }
+
+    private record PageParams(@PositiveOrZero(message = "Страница должна быть >= 0.") int from,
+                              @Positive(message = "Размер страницы должен быть > 0.") int size,
+                              @NotBlank(message = "Параметр сортировки не должен быть пустым.") String sortBy,
+                              String cursor) {
+    }
+
+    private record TopRatedParams(@PositiveOrZero(message = "Страница должна быть >= 0.") int from,
+                                  @Positive(message = "Размер страницы должен быть > 0.")
+                                  @Max(value = TOP_RATED_MAX_SIZE, message = "Размер страницы должен быть <= 100.") int size) {
+    }
+
+    private record RatingChangesParams(String cursor,
+                                       @Positive(message = "Размер страницы должен быть > 0.")
+                                       @Max(value = RATING_CHANGES_MAX_SIZE, message = "Размер страницы должен быть <= 1000.") int size) {
+    }
+
+    private record RatingsParams(@Size(min = 1, max = RATINGS_MAX_MENUS,
+            message = "Количество блюд должно быть от 1 до 100.") Set<Long> menuIds) {
+    }
+
+    private record RatingStreamParams(@Size(min = 1, max = RATING_STREAM_MAX_MENUS,
+            message = "Количество блюд должно быть от 1 до 100.") Set<Long> menuIds) {
+    }
+
+    @Getter
+    private static class InvalidParamsException extends RuntimeException {
+        private final Map<String, String> errors;
+
+        InvalidParamsException(Map<String, String> errors) {
+            super("Invalid request parameters: " + errors);
+            this.errors = errors;
+        }
+    }
+}
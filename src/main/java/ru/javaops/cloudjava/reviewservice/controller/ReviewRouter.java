@@ -0,0 +1,35 @@
+package ru.javaops.cloudjava.reviewservice.controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+/**
+ * Маршруты реактивного стека (профиль reactive). Контракт совпадает с {@link ReviewController}.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReviewRouter {
+
+    @Bean
+    public RouterFunction<ServerResponse> reviewRoutes(ReviewHandler handler) {
+        return RouterFunctions.route()
+                .path("/v1/reviews", builder -> builder
+                        .POST("/batch", handler::createReviews)
+                        .POST("/ratings", handler::getRatingsOfMenus)
+                        .GET("/ratings", handler::getRatings)
+                        .GET("/ratings/top", handler::getTopRated)
+                        .GET("/ratings/changes", handler::getRatingChanges)
+                        .GET("/ratings/stream", handler::streamRatings)
+                        .GET("/my", handler::getReviewsOfUser)
+                        .GET("/my/export", handler::exportReviewsOfUser)
+                        .GET("/menu-item/{menuId}/export", handler::exportReviewsOfMenu)
+                        .GET("/menu-item/{menuId}", handler::getReviewsOfMenu)
+                        .GET("/{id}", handler::getReview)
+                        .POST("", handler::createReview))
+                .build();
+    }
+}
@@ -0,0 +1,7 @@
+package ru.javaops.cloudjava.reviewservice.dto;
+
+public enum BatchItemStatus {
+    CREATED,
+    // пользователь уже оставил отзыв к этому блюду ранее или отзыв повторяется в пакете
+    DUPLICATE
+}
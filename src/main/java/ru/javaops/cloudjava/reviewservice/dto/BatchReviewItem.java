@@ -0,0 +1,30 @@
+package ru.javaops.cloudjava.reviewservice.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.javaops.cloudjava.reviewservice.dto.validation.NullOrNotBlank;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchReviewItem {
+    @NotBlank(message = "Имя пользователя не может быть пустым.")
+    private String createdBy;
+    @NotNull(message = "Идентификатор блюда должен быть указан.")
+    @Positive(message = "Идентификатор блюда должен быть > 0")
+    private Long menuId;
+    @NullOrNotBlank(message = "Комментарий не должен быть пустым.")
+    private String comment;
+    @NotNull(message = "Рейтинг должен быть указан.")
+    @Min(value = 1, message = "Рейтинг должен быть от 1 до 5.")
+    @Max(value = 5, message = "Рейтинг должен быть от 1 до 5.")
+    private Integer rate;
+}
@@ -0,0 +1,16 @@
+package ru.javaops.cloudjava.reviewservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchReviewResult {
+    private int index;
+    private BatchItemStatus status;
+    private ReviewResponse review;
+}
@@ -0,0 +1,23 @@
+package ru.javaops.cloudjava.reviewservice.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CreateReviewsBatchRequest {
+    public static final int MAX_BATCH_SIZE = 5000;
+
+    @NotEmpty(message = "Список отзывов не должен быть пустым.")
+    @Size(max = MAX_BATCH_SIZE, message = "Список отзывов не должен содержать больше " + MAX_BATCH_SIZE + " элементов.")
+    private List<@Valid BatchReviewItem> reviews;
+}
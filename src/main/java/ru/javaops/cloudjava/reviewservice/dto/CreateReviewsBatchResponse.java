@@ -0,0 +1,18 @@
+package ru.javaops.cloudjava.reviewservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CreateReviewsBatchResponse {
+    private int created;
+    private int duplicates;
+    private List<BatchReviewResult> results;
+}
@@ -0,0 +1,15 @@
+package ru.javaops.cloudjava.reviewservice.dto;
+
+/**
+ * Параметры запроса страницы отзывов к блюду. Задается либо номер страницы from, либо курсор.
+ */
+public record MenuReviewsQuery(Long menuId, SortBy sort, int from, int size, ReviewCursor cursor) {
+
+    public static MenuReviewsQuery page(Long menuId, SortBy sort, int from, int size) {
+        return new MenuReviewsQuery(menuId, sort, from, size, null);
+    }
+
+    public static MenuReviewsQuery afterCursor(Long menuId, ReviewCursor cursor, int size) {
+        return new MenuReviewsQuery(menuId, cursor.sort(), 0, size, cursor);
+    }
+}
@@ -0,0 +1,18 @@
+package ru.javaops.cloudjava.reviewservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RankedMenuRating {
+    // место блюда в рейтинге, начиная с 1
+    private long rank;
+    private Long menuId;
+    private Float wilsonScore;
+    private Float avgStars;
+}
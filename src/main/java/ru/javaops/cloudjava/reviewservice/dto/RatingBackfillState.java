@@ -0,0 +1,8 @@
+package ru.javaops.cloudjava.reviewservice.dto;
+
+public enum RatingBackfillState {
+    RUNNING,
+    COMPLETED,
+    // пересчет остановлен из-за ошибки, уже исправленные диапазоны остаются исправленными
+    FAILED
+}
@@ -0,0 +1,25 @@
+package ru.javaops.cloudjava.reviewservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RatingBackfillStatus {
+    private RatingBackfillState state;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private long chunksTotal;
+    private long chunksDone;
+    private long menusProcessed;
+    private long reviewsScanned;
+    private long ratingsCorrected;
+    private long reviewsPerSecond;
+    private String error;
+}
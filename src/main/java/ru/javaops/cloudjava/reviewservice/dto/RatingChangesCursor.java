@@ -0,0 +1,35 @@
+package ru.javaops.cloudjava.reviewservice.dto;
+
+import org.springframework.http.HttpStatus;
+import ru.javaops.cloudjava.reviewservice.exception.ReviewServiceException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Позиция в списке изменений рейтингов по ключу (версия изменения, menu_id).
+ * Клиент получает курсор в ответе и передает его без изменений за следующими изменениями.
+ */
+public record RatingChangesCursor(long version, long menuId) {
+    public static final RatingChangesCursor START = new RatingChangesCursor(0, 0);
+    private static final String DELIMITER = "|";
+
+    public String encode() {
+        String raw = version + DELIMITER + menuId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static RatingChangesCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + DELIMITER);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Unexpected number of cursor parts: " + parts.length);
+            }
+            return new RatingChangesCursor(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException e) {
+            var msg = "Failed to parse cursor: %s".formatted(cursor);
+            throw new ReviewServiceException(msg, HttpStatus.BAD_REQUEST);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package ru.javaops.cloudjava.reviewservice.dto;
+
+import org.springframework.http.HttpStatus;
+import ru.javaops.cloudjava.reviewservice.exception.ReviewServiceException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Позиция в списке отзывов для постраничного чтения по ключу (created_at, id).
+ * Клиент получает курсор в заголовке ответа и передает его без изменений за следующей страницей.
+ */
+public record ReviewCursor(SortBy sort, LocalDateTime createdAt, Long id) {
+    private static final String DELIMITER = "|";
+
+    public static ReviewCursor after(ReviewResponse review, SortBy sort) {
+        return new ReviewCursor(sort, review.getCreatedAt(), review.getId());
+    }
+
+    public String encode() {
+        String raw = String.join(DELIMITER, sort.name(), createdAt.toString(), id.toString());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ReviewCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + DELIMITER);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Unexpected number of cursor parts: " + parts.length);
+            }
+            return new ReviewCursor(SortBy.valueOf(parts[0]), LocalDateTime.parse(parts[1]), Long.valueOf(parts[2]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            var msg = "Failed to parse cursor: %s".formatted(cursor);
+            throw new ReviewServiceException(msg, HttpStatus.BAD_REQUEST);
+        }
+    }
+}
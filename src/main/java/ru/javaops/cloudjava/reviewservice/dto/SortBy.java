@@ -9,8 +9,8 @@ import ru.javaops.cloudjava.reviewservice.exception.ReviewServiceException;
 
 @AllArgsConstructor
 public enum SortBy {
-    DATE_ASC(Sort.by(Sort.Direction.ASC, "createdAt")),
-    DATE_DESC(Sort.by(Sort.Direction.DESC, "createdAt"));
+    DATE_ASC(Sort.by(Sort.Direction.ASC, "createdAt", "id")),
+    DATE_DESC(Sort.by(Sort.Direction.DESC, "createdAt", "id"));
 
     @JsonCreator
     public static SortBy fromString(String str) {
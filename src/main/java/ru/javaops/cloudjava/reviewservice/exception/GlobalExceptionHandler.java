@@ -1,6 +1,7 @@
 package ru.javaops.cloudjava.reviewservice.exception;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.*;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -17,6 +18,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 @Slf4j
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RestControllerAdvice
 public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
 
@@ -65,10 +67,18 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return handleExceptionInternal(ex, pd, headers, HttpStatus.BAD_REQUEST, request);
     }
 
-    private static ProblemDetail createProblemDetail(String message, HttpStatus status, WebRequest request) {
+    /**
+     * ProblemDetail в том же формате, что и ответы на перехваченные исключения.
+     * Для контроллеров, которые формируют ответ об ошибке без выбрасывания исключения.
+     */
+    public static ProblemDetail createProblemDetail(String message, HttpStatus status, String requestUri) {
         var pd = ProblemDetail.forStatusAndDetail(status, message);
         pd.setProperty("timestamp", Instant.now());
-        pd.setInstance(URI.create(((ServletWebRequest) request).getRequest().getRequestURI()));
+        pd.setInstance(URI.create(requestUri));
         return pd;
     }
+
+    private static ProblemDetail createProblemDetail(String message, HttpStatus status, WebRequest request) {
+        return createProblemDetail(message, status, ((ServletWebRequest) request).getRequest().getRequestURI());
+    }
 }
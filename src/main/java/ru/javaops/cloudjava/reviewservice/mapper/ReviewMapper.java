@@ -3,6 +3,7 @@ package ru.javaops.cloudjava.reviewservice.mapper;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.ReportingPolicy;
+import ru.javaops.cloudjava.reviewservice.dto.BatchReviewItem;
 import ru.javaops.cloudjava.reviewservice.dto.CreateReviewRequest;
 import ru.javaops.cloudjava.reviewservice.dto.ReviewResponse;
 import ru.javaops.cloudjava.reviewservice.storage.model.Review;
@@ -17,6 +18,10 @@ public interface ReviewMapper {
     @Mapping(source = "username", target = "createdBy")
     Review toDomain(CreateReviewRequest dto, String username);
 
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "createdAt", ignore = true)
+    Review toDomain(BatchReviewItem dto);
+
     ReviewResponse toReviewResponse(Review review);
 
     List<ReviewResponse> toReviewResponseList(List<Review> reviews);
@@ -0,0 +1,19 @@
+package ru.javaops.cloudjava.reviewservice.metrics;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Значение тега outcome таймеров {@link OperationMetricsAspect} для вызова метода, вернувшего пустой Optional.
+ * Без аннотации пустой Optional считается успешным результатом.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface EmptyResultOutcome {
+
+    String value();
+}
@@ -0,0 +1,115 @@
+package ru.javaops.cloudjava.reviewservice.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import ru.javaops.cloudjava.reviewservice.exception.ReviewServiceException;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Таймеры вызовов сервисов и репозиториев: app.service и app.repository с тегами
+ * operation (интерфейс и метод), outcome и exception.
+ * <p>
+ * Аспект внешний по отношению к транзакции, поэтому время вызова транзакционного метода включает фиксацию.
+ * Для методов репозиториев, возвращающих Stream, измеряется выполнение запроса до получения первых строк.
+ * Outcome вызова, вернувшего пустой Optional, задается аннотацией {@link EmptyResultOutcome} метода.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class OperationMetricsAspect {
+    public static final String SERVICE_TIMER = "app.service";
+    public static final String REPOSITORY_TIMER = "app.repository";
+    private static final String APP_PACKAGE = "ru.javaops.cloudjava.reviewservice";
+
+    private final ConcurrentHashMap<Class<?>, String> componentNames = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Method, Optional<String>> emptyResultOutcomes = new ConcurrentHashMap<>();
+    private final MeterRegistry registry;
+
+    @Around("execution(public * (ru.javaops.cloudjava.reviewservice.service.ReviewService+ " +
+            "|| ru.javaops.cloudjava.reviewservice.service.RatingService+).*(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(SERVICE_TIMER, joinPoint);
+    }
+
+    @Around("target(ru.javaops.cloudjava.reviewservice.storage.repositories.ReviewRepository) " +
+            "|| target(ru.javaops.cloudjava.reviewservice.storage.repositories.RatingRepository)")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(REPOSITORY_TIMER, joinPoint);
+    }
+
+    private Object time(String timerName, ProceedingJoinPoint joinPoint) throws Throwable {
+        var sample = Timer.start(registry);
+        String outcome = "success";
+        String exception = "none";
+        try {
+            Object result = joinPoint.proceed();
+            if (result instanceof Optional<?> optional && optional.isEmpty()) {
+                outcome = emptyResultOutcome(joinPoint).orElse(outcome);
+            }
+            return result;
+        } catch (Throwable ex) {
+            outcome = outcome(ex);
+            exception = ex.getClass().getSimpleName();
+            throw ex;
+        } finally {
+            sample.stop(Timer.builder(timerName)
+                    .tag("operation", componentName(joinPoint.getTarget()) + "." + joinPoint.getSignature().getName())
+                    .tag("outcome", outcome)
+                    .tag("exception", exception)
+                    .register(registry));
+        }
+    }
+
+    private static String outcome(Throwable ex) {
+        if (ex instanceof DataIntegrityViolationException) {
+            return "conflict";
+        }
+        if (ex instanceof ReviewServiceException serviceException) {
+            HttpStatus status = serviceException.getStatus();
+            return status == HttpStatus.CONFLICT ? "conflict"
+                    : status == HttpStatus.NOT_FOUND ? "not_found"
+                    : status.is4xxClientError() ? "client_error"
+                    : "error";
+        }
+        return "error";
+    }
+
+    private Optional<String> emptyResultOutcome(ProceedingJoinPoint joinPoint) {
+        var method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        var targetClass = AopUtils.getTargetClass(joinPoint.getTarget());
+        // аннотация объявляется на методе интерфейса, поэтому ищем ее и в интерфейсах реализации
+        return emptyResultOutcomes.computeIfAbsent(method, m -> Optional.ofNullable(AnnotatedElementUtils.findMergedAnnotation(
+                        AopUtils.getMostSpecificMethod(m, targetClass), EmptyResultOutcome.class))
+                .map(EmptyResultOutcome::value));
+    }
+
+    /**
+     * Имя интерфейса приложения, который реализует компонент: ReviewService, а не ReviewServiceImpl,
+     * и ReviewRepository, а не прокси Spring Data.
+     */
+    private String componentName(Object target) {
+        return componentNames.computeIfAbsent(target.getClass(), type -> Arrays.stream(ClassUtils.getAllInterfacesForClass(type))
+                .filter(iface -> iface.getName().startsWith(APP_PACKAGE) && !iface.getSimpleName().endsWith("Custom"))
+                .findFirst()
+                .orElseGet(() -> type)
+                .getSimpleName());
+    }
+}
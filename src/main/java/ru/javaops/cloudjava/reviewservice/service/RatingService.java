@@ -1,14 +1,30 @@
 package ru.javaops.cloudjava.reviewservice.service;
 
 import ru.javaops.cloudjava.reviewservice.dto.GetRatingsRequest;
+import ru.javaops.cloudjava.reviewservice.dto.RankedMenuRating;
+import ru.javaops.cloudjava.reviewservice.dto.RatingChangesCursor;
+import ru.javaops.cloudjava.reviewservice.dto.RatingChangesResponse;
 import ru.javaops.cloudjava.reviewservice.dto.RatingsResponse;
 import ru.javaops.cloudjava.reviewservice.storage.model.MenuRatingInfo;
+import ru.javaops.cloudjava.reviewservice.storage.model.RatingIncrement;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface RatingService {
 
     void saveRating(Long menuId, Integer rate);
 
+    void saveRatings(Collection<RatingIncrement> increments);
+
     MenuRatingInfo getRatingOfMenu(Long menuId);
 
     RatingsResponse getRatingsOfMenus(GetRatingsRequest request);
+
+    List<RankedMenuRating> getTopRated(int from, int size);
+
+    /**
+     * Возвращает до size рейтингов, измененных после позиции курсора, и курсор для следующего запроса.
+     */
+    RatingChangesResponse getRatingChanges(RatingChangesCursor cursor, int size);
 }
@@ -0,0 +1,33 @@
+package ru.javaops.cloudjava.reviewservice.service;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.javaops.cloudjava.reviewservice.dto.*;
+
+import java.util.List;
+
+public interface ReactiveReviewService {
+
+    /**
+     * Создает отзыв. Возвращает пустой Mono, если пользователь уже оставил отзыв к этому блюду.
+     */
+    Mono<ReviewResponse> createReview(CreateReviewRequest request, String username);
+
+    Mono<CreateReviewsBatchResponse> createReviews(CreateReviewsBatchRequest request);
+
+    Mono<ReviewResponse> getReview(Long reviewId);
+
+    Mono<List<ReviewResponse>> getReviewsOfUser(String username, SortBy sort, int from, int size);
+
+    Mono<List<ReviewResponse>> getReviewsOfUser(String username, ReviewCursor cursor, int size);
+
+    Mono<RatedReviewsResponse> getRatedReviewsForMenu(Long menuId, SortBy sort, int from, int size);
+
+    Mono<RatedReviewsResponse> getRatedReviewsForMenu(Long menuId, ReviewCursor cursor, int size);
+
+    Flux<ReviewResponse> exportReviewsOfMenu(Long menuId);
+
+    Flux<ReviewResponse> exportReviewsOfUser(String username);
+
+    Mono<RatingsResponse> getRatingsOfMenus(GetRatingsRequest request);
+}
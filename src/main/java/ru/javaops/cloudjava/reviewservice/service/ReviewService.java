@@ -1,19 +1,45 @@
 package ru.javaops.cloudjava.reviewservice.service;
 
 import ru.javaops.cloudjava.reviewservice.dto.CreateReviewRequest;
+import ru.javaops.cloudjava.reviewservice.dto.CreateReviewsBatchRequest;
+import ru.javaops.cloudjava.reviewservice.dto.CreateReviewsBatchResponse;
 import ru.javaops.cloudjava.reviewservice.dto.RatedReviewsResponse;
+import ru.javaops.cloudjava.reviewservice.dto.ReviewCursor;
 import ru.javaops.cloudjava.reviewservice.dto.ReviewResponse;
 import ru.javaops.cloudjava.reviewservice.dto.SortBy;
+import ru.javaops.cloudjava.reviewservice.metrics.EmptyResultOutcome;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface ReviewService {
 
-    ReviewResponse createReview(CreateReviewRequest request, String username);
+    /**
+     * Создает отзыв. Возвращает пустой Optional, если пользователь уже оставил отзыв к этому блюду.
+     */
+    @EmptyResultOutcome("conflict")
+    Optional<ReviewResponse> createReview(CreateReviewRequest request, String username);
+
+    CreateReviewsBatchResponse createReviews(CreateReviewsBatchRequest request);
 
     ReviewResponse getReview(Long reviewId);
 
     List<ReviewResponse> getReviewsOfUser(String username, SortBy sort, int from, int size);
 
+    List<ReviewResponse> getReviewsOfUser(String username, ReviewCursor cursor, int size);
+
     RatedReviewsResponse getRatedReviewsForMenu(Long menuId, SortBy sort, int from, int size);
+
+    RatedReviewsResponse getRatedReviewsForMenu(Long menuId, ReviewCursor cursor, int size);
+
+    /**
+     * Передает все отзывы к блюду в порядке создания, не загружая их в память целиком.
+     */
+    void exportReviewsOfMenu(Long menuId, Consumer<ReviewResponse> consumer);
+
+    /**
+     * Передает все отзывы пользователя в порядке создания, не загружая их в память целиком.
+     */
+    void exportReviewsOfUser(String username, Consumer<ReviewResponse> consumer);
 }
@@ -0,0 +1,288 @@
+package ru.javaops.cloudjava.reviewservice.service.cache;
+
+import ru.javaops.cloudjava.reviewservice.storage.model.MenuRatingInfo;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Ограниченный по размеру и времени жизни записей кэш рейтингов блюд.
+ * <p>
+ * Ключи хранятся в массивах long без упаковки в Long. Кэш разбит на сегменты с открытой адресацией,
+ * при переполнении сегмента запись для вытеснения выбирается по алгоритму CLOCK.
+ * Чтения сегмента не блокируют друг друга: они берут блокировку на чтение и только отмечают запись
+ * как использованную, а истекшие записи удаляют под блокировкой на запись.
+ * Нулевой maximumSize отключает кэширование.
+ */
+public class MenuRatingCache {
+    private static final int SEGMENTS = 16;
+    private static final int SEGMENT_SHIFT = Long.SIZE - Integer.numberOfTrailingZeros(SEGMENTS);
+
+    private final Segment[] segments;
+    private final long ttlNanos;
+    private final boolean enabled;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+
+    public MenuRatingCache(int maximumSize, Duration ttl) {
+        this.enabled = maximumSize > 0;
+        this.ttlNanos = ttl.toNanos();
+        int segmentCapacity = Math.max(1, (maximumSize + SEGMENTS - 1) / SEGMENTS);
+        this.segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(enabled ? segmentCapacity : 1);
+        }
+    }
+
+    /**
+     * Возвращает отметку инвалидаций для ключа. Ее нужно получить до чтения из БД и передать
+     * в {@link #putIfNotInvalidated}, чтобы не закэшировать значение, устаревшее из-за параллельной записи.
+     */
+    public long stamp(long menuId) {
+        return segmentFor(hash(menuId)).invalidations;
+    }
+
+    public MenuRatingInfo get(long menuId) {
+        if (!enabled) {
+            return null;
+        }
+        long hash = hash(menuId);
+        MenuRatingInfo value = segmentFor(hash).get(menuId, hash, System.nanoTime());
+        if (value == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    public void putIfNotInvalidated(long menuId, MenuRatingInfo value, long stamp) {
+        if (!enabled) {
+            return;
+        }
+        long hash = hash(menuId);
+        if (segmentFor(hash).put(menuId, hash, value, stamp, System.nanoTime() + ttlNanos)) {
+            puts.increment();
+        }
+    }
+
+    public void invalidate(long menuId) {
+        long hash = hash(menuId);
+        segmentFor(hash).invalidate(menuId, hash);
+    }
+
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    public long putCount() {
+        return puts.sum();
+    }
+
+    private Segment segmentFor(long hash) {
+        return segments[(int) (hash >>> SEGMENT_SHIFT)];
+    }
+
+    private static long hash(long key) {
+        return key * 0x9E3779B97F4A7C15L;
+    }
+
+    private final class Segment {
+        private final Lock readLock;
+        private final Lock writeLock;
+        private final long[] keys;
+        private final MenuRatingInfo[] values;
+        private final long[] expiresAt;
+        private final boolean[] referenced;
+        private final int capacity;
+        private final int mask;
+        private volatile long invalidations;
+        private volatile int size;
+        private int clockHand;
+
+        private Segment(int capacity) {
+            // заполняем таблицу не более чем наполовину, чтобы цепочки проб оставались короткими
+            int length = Integer.highestOneBit(capacity * 2 - 1) << 1;
+            this.capacity = capacity;
+            this.mask = length - 1;
+            this.keys = new long[length];
+            this.values = new MenuRatingInfo[length];
+            this.expiresAt = new long[length];
+            this.referenced = new boolean[length];
+            var lock = new ReentrantReadWriteLock();
+            this.readLock = lock.readLock();
+            this.writeLock = lock.writeLock();
+        }
+
+        private MenuRatingInfo get(long key, long hash, long now) {
+            readLock.lock();
+            try {
+                int index = indexOf(key, hash);
+                if (index < 0) {
+                    return null;
+                }
+                if (now - expiresAt[index] < 0) {
+                    // одновременные читатели пишут одно и то же значение, CLOCK читает флаг под блокировкой на запись
+                    referenced[index] = true;
+                    return values[index];
+                }
+            } finally {
+                readLock.unlock();
+            }
+            removeExpired(key, hash, now);
+            return null;
+        }
+
+        /**
+         * Удаляет истекшую запись, если блокировка на запись свободна. Иначе запись останется
+         * до вытеснения: CLOCK удаляет истекшие записи в первую очередь.
+         */
+        private void removeExpired(long key, long hash, long now) {
+            if (!writeLock.tryLock()) {
+                return;
+            }
+            try {
+                int index = indexOf(key, hash);
+                if (index >= 0 && now - expiresAt[index] >= 0) {
+                    removeAt(index);
+                    evictions.increment();
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        private boolean put(long key, long hash, MenuRatingInfo value, long stamp, long expiresAtNanos) {
+            writeLock.lock();
+            try {
+                if (invalidations != stamp) {
+                    return false;
+                }
+                int index = indexOf(key, hash);
+                if (index < 0) {
+                    if (size >= capacity) {
+                        evictOne();
+                    }
+                    index = (int) hash & mask;
+                    while (values[index] != null) {
+                        index = (index + 1) & mask;
+                    }
+                    keys[index] = key;
+                    size++;
+                }
+                values[index] = value;
+                expiresAt[index] = expiresAtNanos;
+                referenced[index] = true;
+                return true;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        private void invalidate(long key, long hash) {
+            writeLock.lock();
+            try {
+                invalidations++;
+                int index = indexOf(key, hash);
+                if (index >= 0) {
+                    removeAt(index);
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        private void clear() {
+            writeLock.lock();
+            try {
+                invalidations++;
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = null;
+                    referenced[i] = false;
+                }
+                size = 0;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        private int indexOf(long key, long hash) {
+            int index = (int) hash & mask;
+            while (values[index] != null) {
+                if (keys[index] == key) {
+                    return index;
+                }
+                index = (index + 1) & mask;
+            }
+            return -1;
+        }
+
+        private void evictOne() {
+            long now = System.nanoTime();
+            while (true) {
+                int index = clockHand;
+                clockHand = (clockHand + 1) & mask;
+                if (values[index] == null) {
+                    continue;
+                }
+                if (!referenced[index] || now - expiresAt[index] >= 0) {
+                    removeAt(index);
+                    evictions.increment();
+                    return;
+                }
+                referenced[index] = false;
+            }
+        }
+
+        private void removeAt(int index) {
+            // удаление со сдвигом назад: переносим в освободившуюся ячейку записи, чья цепочка проб через нее проходит
+            int hole = index;
+            values[hole] = null;
+            referenced[hole] = false;
+            int next = hole;
+            while (true) {
+                next = (next + 1) & mask;
+                if (values[next] == null) {
+                    break;
+                }
+                int home = (int) hash(keys[next]) & mask;
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    values[hole] = values[next];
+                    expiresAt[hole] = expiresAt[next];
+                    referenced[hole] = referenced[next];
+                    values[next] = null;
+                    referenced[next] = false;
+                    hole = next;
+                }
+            }
+            size--;
+        }
+    }
+}
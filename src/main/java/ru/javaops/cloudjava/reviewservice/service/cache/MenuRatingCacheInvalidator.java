@@ -0,0 +1,18 @@
+package ru.javaops.cloudjava.reviewservice.service.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.javaops.cloudjava.reviewservice.service.rating.RatingsChangedEvent;
+
+@Component
+@RequiredArgsConstructor
+public class MenuRatingCacheInvalidator {
+
+    private final MenuRatingCache cache;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRatingsChanged(RatingsChangedEvent event) {
+        event.menuIds().forEach(cache::invalidate);
+    }
+}
@@ -0,0 +1,110 @@
+package ru.javaops.cloudjava.reviewservice.service.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.javaops.cloudjava.reviewservice.dto.RatingsResponse;
+import ru.javaops.cloudjava.reviewservice.storage.model.MenuRatingInfo;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Чтение рейтингов блюд через {@link MenuRatingCache}, общее для сервлетного и реактивного стека,
+ * которые отличаются только способом загрузки промахов из БД.
+ * <p>
+ * Отметка инвалидаций берется до чтения кэша, поэтому загруженный рейтинг не кэшируется, если его изменили
+ * во время загрузки. Блюдо без оценок получает нулевой рейтинг.
+ */
+@Component
+@RequiredArgsConstructor
+public class MenuRatingReader {
+
+    private final MenuRatingCache cache;
+
+    public Lookup lookup(Long menuId) {
+        long stamp = cache.stamp(menuId);
+        return new Lookup(menuId, stamp, cache.get(menuId));
+    }
+
+    public BatchLookup lookup(Collection<Long> menuIds) {
+        return new BatchLookup(menuIds);
+    }
+
+    private static MenuRatingInfo defaultRating(Long menuId) {
+        return MenuRatingInfo.builder()
+                .menuId(menuId)
+                .wilsonScore(0.0f)
+                .avgStars(0.0f)
+                .build();
+    }
+
+    public final class Lookup {
+        private final Long menuId;
+        private final long stamp;
+        private final MenuRatingInfo cached;
+
+        private Lookup(Long menuId, long stamp, MenuRatingInfo cached) {
+            this.menuId = menuId;
+            this.stamp = stamp;
+            this.cached = cached;
+        }
+
+        /**
+         * Рейтинг из кэша или null, если его нужно загрузить и передать в {@link #complete}.
+         */
+        public MenuRatingInfo cached() {
+            return cached;
+        }
+
+        public MenuRatingInfo complete(Optional<MenuRatingInfo> loaded) {
+            var rating = loaded.orElseGet(() -> defaultRating(menuId));
+            cache.putIfNotInvalidated(menuId, rating, stamp);
+            return rating;
+        }
+    }
+
+    public final class BatchLookup {
+        private final Collection<Long> menuIds;
+        private final Map<Long, MenuRatingInfo> menuIdToRatings = new HashMap<>();
+        private final Map<Long, Long> missingToStamp = new HashMap<>();
+
+        private BatchLookup(Collection<Long> menuIds) {
+            this.menuIds = menuIds;
+            for (Long menuId : menuIds) {
+                long stamp = cache.stamp(menuId);
+                var cached = cache.get(menuId);
+                if (cached != null) {
+                    menuIdToRatings.put(menuId, cached);
+                } else {
+                    missingToStamp.put(menuId, stamp);
+                }
+            }
+        }
+
+        /**
+         * Блюда, рейтинги которых нужно загрузить и передать в {@link #complete}.
+         */
+        public Set<Long> missing() {
+            return missingToStamp.keySet();
+        }
+
+        public RatingsResponse complete(Collection<MenuRatingInfo> loaded) {
+            Map<Long, MenuRatingInfo> found = new HashMap<>();
+            loaded.forEach(rating -> found.put(rating.getMenuId(), rating));
+            missingToStamp.forEach((menuId, stamp) -> {
+                var rating = found.computeIfAbsent(menuId, MenuRatingReader::defaultRating);
+                cache.putIfNotInvalidated(menuId, rating, stamp);
+                menuIdToRatings.put(menuId, rating);
+            });
+            return RatingsResponse.builder()
+                    .menuRatings(menuIds.stream()
+                            .map(menuIdToRatings::get)
+                            .collect(Collectors.toList()))
+                    .build();
+        }
+    }
+}
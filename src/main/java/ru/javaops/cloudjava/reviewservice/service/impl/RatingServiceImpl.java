@@ -4,60 +4,93 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.javaops.cloudjava.reviewservice.dto.GetRatingsRequest;
+import ru.javaops.cloudjava.reviewservice.dto.RankedMenuRating;
+import ru.javaops.cloudjava.reviewservice.dto.RatingChangesCursor;
+import ru.javaops.cloudjava.reviewservice.dto.RatingChangesResponse;
 import ru.javaops.cloudjava.reviewservice.dto.RatingsResponse;
 import ru.javaops.cloudjava.reviewservice.service.RatingService;
+import ru.javaops.cloudjava.reviewservice.service.cache.MenuRatingReader;
+import ru.javaops.cloudjava.reviewservice.service.rating.RatingLeaderboard;
+import ru.javaops.cloudjava.reviewservice.service.rating.RatingUpdater;
 import ru.javaops.cloudjava.reviewservice.storage.model.MenuRatingInfo;
+import ru.javaops.cloudjava.reviewservice.storage.model.RatingChange;
+import ru.javaops.cloudjava.reviewservice.storage.model.RatingIncrement;
 import ru.javaops.cloudjava.reviewservice.storage.repositories.RatingRepository;
+import ru.javaops.cloudjava.reviewservice.util.SingleFlight;
 
+import java.util.Collection;
 import java.util.List;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class RatingServiceImpl implements RatingService {
 
     private final RatingRepository repository;
+    private final RatingUpdater ratingUpdater;
+    private final MenuRatingReader ratingReader;
+    private final SingleFlight<Long, MenuRatingInfo> ratingSingleFlight;
+    private final RatingLeaderboard leaderboard;
 
     @Transactional
     @Override
     public void saveRating(Long menuId, Integer rate) {
-        ensureRatingExists(menuId);
-        repository.incrementRating(menuId, rate);
+        ratingUpdater.updateRating(menuId, rate);
+    }
+
+    @Transactional
+    @Override
+    public void saveRatings(Collection<RatingIncrement> increments) {
+        ratingUpdater.updateRatings(increments);
     }
 
 
     @Override
     public MenuRatingInfo getRatingOfMenu(Long menuId) {
-        return repository.findRatingInfoByMenuId(menuId)
-                .orElse(defaultRating(menuId));
+        var lookup = ratingReader.lookup(menuId);
+        if (lookup.cached() != null) {
+            return lookup.cached();
+        }
+        // при промахе кэша одновременные запросы рейтинга блюда выполняют один запрос к БД
+        return ratingSingleFlight.execute(menuId, () -> lookup.complete(repository.findRatingInfoByMenuId(menuId)));
     }
 
     @Override
     public RatingsResponse getRatingsOfMenus(GetRatingsRequest request) {
-        var menuIdToRatings = repository
-                .findRatingInfosByMenuIdIn(request.getMenuIds())
-                .stream()
-                .collect(Collectors.toMap(MenuRatingInfo::getMenuId, Function.identity()));
-
-        List<MenuRatingInfo> result = request.getMenuIds().stream()
-                .map(id -> menuIdToRatings.getOrDefault(id, defaultRating(id)))
-                .collect(Collectors.toList());
-
-        return RatingsResponse.builder()
-                .menuRatings(result)
-                .build();
+        var lookup = ratingReader.lookup(request.getMenuIds());
+        var missing = lookup.missing();
+        return lookup.complete(missing.isEmpty() ? List.of() : repository.findRatingInfosByMenuIdIn(missing));
     }
 
-    private void ensureRatingExists(Long menuId) {
-        repository.insertNoConflict(menuId);
+    @Override
+    public List<RankedMenuRating> getTopRated(int from, int size) {
+        return leaderboard.getTop(from, size);
     }
 
-    private MenuRatingInfo defaultRating(Long menuId) {
-        return MenuRatingInfo.builder()
-                .menuId(menuId)
-                .wilsonScore(0.0f)
-                .avgStars(0.0f)
+    /**
+     * Версия изменения - идентификатор транзакции, который назначается при ее начале, а не при фиксации.
+     * Поэтому отдаются только изменения с версиями меньше границы, ниже которой все транзакции завершены:
+     * изменение, зафиксированное позже, получит версию не меньше границы и попадет в следующие ответы.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public RatingChangesResponse getRatingChanges(RatingChangesCursor cursor, int size) {
+        long watermark = repository.findChangeVersionWatermark();
+        List<RatingChange> changes = repository.findRatingChanges(cursor.version(), cursor.menuId(), watermark, size);
+        boolean hasMore = changes.size() == size;
+        RatingChangesCursor next;
+        if (hasMore) {
+            var last = changes.get(changes.size() - 1);
+            next = new RatingChangesCursor(last.version(), last.rating().getMenuId());
+        } else if (cursor.version() < watermark) {
+            // все изменения с версиями меньше границы отданы
+            next = new RatingChangesCursor(watermark - 1, Long.MAX_VALUE);
+        } else {
+            next = cursor;
+        }
+        return RatingChangesResponse.builder()
+                .menuRatings(changes.stream().map(RatingChange::rating).toList())
+                .nextCursor(next.encode())
+                .hasMore(hasMore)
                 .build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,126 @@
+package ru.javaops.cloudjava.reviewservice.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import ru.javaops.cloudjava.reviewservice.dto.*;
+import ru.javaops.cloudjava.reviewservice.exception.ReviewServiceException;
+import ru.javaops.cloudjava.reviewservice.mapper.ReviewMapper;
+import ru.javaops.cloudjava.reviewservice.service.ReactiveReviewService;
+import ru.javaops.cloudjava.reviewservice.service.ReviewService;
+import ru.javaops.cloudjava.reviewservice.service.cache.MenuRatingReader;
+import ru.javaops.cloudjava.reviewservice.storage.model.MenuRatingInfo;
+import ru.javaops.cloudjava.reviewservice.storage.model.Review;
+import ru.javaops.cloudjava.reviewservice.storage.repositories.reactive.ReactiveRatingRepository;
+import ru.javaops.cloudjava.reviewservice.storage.repositories.reactive.ReactiveReviewRepository;
+
+import java.util.List;
+
+/**
+ * Чтение отзывов и рейтингов выполняется через R2DBC без блокировки потоков event loop.
+ * Создание отзывов переиспользует транзакционный {@link ReviewService} и выполняется на boundedElastic,
+ * чтобы рейтинги обновлялись в той же транзакции, что и сохранение отзыва.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveReviewServiceImpl implements ReactiveReviewService {
+
+    private final ReactiveReviewRepository reviewRepository;
+    private final ReactiveRatingRepository ratingRepository;
+    private final ReviewService reviewService;
+    private final ReviewMapper reviewMapper;
+    private final MenuRatingReader ratingReader;
+
+    @Override
+    public Mono<ReviewResponse> createReview(CreateReviewRequest request, String username) {
+        return Mono.fromCallable(() -> reviewService.createReview(request, username).orElse(null))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Mono<CreateReviewsBatchResponse> createReviews(CreateReviewsBatchRequest request) {
+        return Mono.fromCallable(() -> reviewService.createReviews(request))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Mono<ReviewResponse> getReview(Long reviewId) {
+        return reviewRepository.findById(reviewId)
+                .map(reviewMapper::toReviewResponse)
+                .switchIfEmpty(Mono.error(() -> {
+                    var msg = "Review with id=%d not found.".formatted(reviewId);
+                    return new ReviewServiceException(msg, HttpStatus.NOT_FOUND);
+                }));
+    }
+
+    @Override
+    public Mono<List<ReviewResponse>> getReviewsOfUser(String username, SortBy sort, int from, int size) {
+        return toResponses(reviewRepository.findAllByCreatedBy(username, sort, from, size));
+    }
+
+    @Override
+    public Mono<List<ReviewResponse>> getReviewsOfUser(String username, ReviewCursor cursor, int size) {
+        return toResponses(reviewRepository.findAllByCreatedBy(username, cursor, size));
+    }
+
+    @Override
+    public Mono<RatedReviewsResponse> getRatedReviewsForMenu(Long menuId, SortBy sort, int from, int size) {
+        return toRatedReviewsResponse(menuId, reviewRepository.findAllByMenuId(menuId, sort, from, size));
+    }
+
+    @Override
+    public Mono<RatedReviewsResponse> getRatedReviewsForMenu(Long menuId, ReviewCursor cursor, int size) {
+        return toRatedReviewsResponse(menuId, reviewRepository.findAllByMenuId(menuId, cursor, size));
+    }
+
+    @Override
+    public Flux<ReviewResponse> exportReviewsOfMenu(Long menuId) {
+        return reviewRepository.streamAllByMenuId(menuId).map(reviewMapper::toReviewResponse);
+    }
+
+    @Override
+    public Flux<ReviewResponse> exportReviewsOfUser(String username) {
+        return reviewRepository.streamAllByCreatedBy(username).map(reviewMapper::toReviewResponse);
+    }
+
+    @Override
+    public Mono<RatingsResponse> getRatingsOfMenus(GetRatingsRequest request) {
+        return Mono.defer(() -> {
+            var lookup = ratingReader.lookup(request.getMenuIds());
+            var missing = lookup.missing();
+            Mono<List<MenuRatingInfo>> loaded = missing.isEmpty()
+                    ? Mono.just(List.of())
+                    : ratingRepository.findRatingInfosByMenuIdIn(missing).collectList();
+            return loaded.map(lookup::complete);
+        });
+    }
+
+    private Mono<List<ReviewResponse>> toResponses(Flux<Review> reviews) {
+        return reviews.map(reviewMapper::toReviewResponse).collectList();
+    }
+
+    private Mono<RatedReviewsResponse> toRatedReviewsResponse(Long menuId, Flux<Review> reviews) {
+        return Mono.zip(toResponses(reviews), getRatingOfMenu(menuId))
+                .map(tuple -> RatedReviewsResponse.builder()
+                        .reviews(tuple.getT1())
+                        .menuRating(tuple.getT2())
+                        .build());
+    }
+
+    private Mono<MenuRatingInfo> getRatingOfMenu(Long menuId) {
+        return Mono.defer(() -> {
+            var lookup = ratingReader.lookup(menuId);
+            if (lookup.cached() != null) {
+                return Mono.just(lookup.cached());
+            }
+            return ratingRepository.findRatingInfoByMenuId(menuId)
+                    .singleOptional()
+                    .map(lookup::complete);
+        });
+    }
+}
@@ -1,24 +1,30 @@
 package ru.javaops.cloudjava.reviewservice.service.impl;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-import ru.javaops.cloudjava.reviewservice.dto.CreateReviewRequest;
-import ru.javaops.cloudjava.reviewservice.dto.RatedReviewsResponse;
-import ru.javaops.cloudjava.reviewservice.dto.ReviewResponse;
-import ru.javaops.cloudjava.reviewservice.dto.SortBy;
+import ru.javaops.cloudjava.reviewservice.dto.*;
 import ru.javaops.cloudjava.reviewservice.exception.ReviewServiceException;
 import ru.javaops.cloudjava.reviewservice.mapper.ReviewMapper;
 import ru.javaops.cloudjava.reviewservice.service.RatingService;
 import ru.javaops.cloudjava.reviewservice.service.ReviewService;
+import ru.javaops.cloudjava.reviewservice.storage.model.RatingIncrement;
 import ru.javaops.cloudjava.reviewservice.storage.model.Review;
 import ru.javaops.cloudjava.reviewservice.storage.repositories.ReviewRepository;
+import ru.javaops.cloudjava.reviewservice.util.SingleFlight;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @Transactional(readOnly = true)
@@ -28,20 +34,60 @@ public class ReviewServiceImpl implements ReviewService {
     private final ReviewRepository reviewRepository;
     private final ReviewMapper reviewMapper;
     private final RatingService ratingService;
+    private final SingleFlight<MenuReviewsQuery, RatedReviewsResponse> menuReviewsSingleFlight;
 
     @Transactional
     @Override
-    public ReviewResponse createReview(CreateReviewRequest request, String username) {
-        try {
-            var review = reviewRepository.save(reviewMapper.toDomain(request, username));
-            saveRating(request);
-            return reviewMapper.toReviewResponse(review);
-        } catch (DataIntegrityViolationException ex) {
-            var msg =
-                    "Failed to create Review to menu with id %d by user with name: %s, because the user already placed Review to that menu."
-                            .formatted(request.getMenuId(), username);
-            throw new ReviewServiceException(msg, HttpStatus.CONFLICT);
+    public Optional<ReviewResponse> createReview(CreateReviewRequest request, String username) {
+        // дубликат отсекается самим INSERT-ом (ON CONFLICT DO NOTHING) без исключения и отката транзакции
+        var review = reviewRepository.insertSkippingConflict(reviewMapper.toDomain(request, username), LocalDateTime.now());
+        if (review.isEmpty()) {
+            return Optional.empty();
         }
+        saveRating(request);
+        return review.map(reviewMapper::toReviewResponse);
+    }
+
+    @Transactional
+    @Override
+    public CreateReviewsBatchResponse createReviews(CreateReviewsBatchRequest request) {
+        var items = request.getReviews();
+        // первое вхождение пары (блюдо, пользователь) в пакете вставляется, остальные считаются дубликатами
+        Map<ReviewKey, Integer> firstIndexByKey = new HashMap<>();
+        List<Review> candidates = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            var item = items.get(i);
+            if (firstIndexByKey.putIfAbsent(new ReviewKey(item.getMenuId(), item.getCreatedBy()), i) == null) {
+                candidates.add(reviewMapper.toDomain(item));
+            }
+        }
+
+        List<Review> inserted = reviewRepository.insertAllSkippingConflicts(candidates, LocalDateTime.now());
+        Map<ReviewKey, Review> insertedByKey = new HashMap<>();
+        Map<Long, RatingIncrement> increments = new HashMap<>();
+        for (Review review : inserted) {
+            insertedByKey.put(new ReviewKey(review.getMenuId(), review.getCreatedBy()), review);
+            increments.merge(review.getMenuId(), RatingIncrement.of(review.getMenuId(), review.getRate()),
+                    RatingIncrement::plus);
+        }
+        ratingService.saveRatings(increments.values());
+
+        List<BatchReviewResult> results = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            var item = items.get(i);
+            var key = new ReviewKey(item.getMenuId(), item.getCreatedBy());
+            var review = firstIndexByKey.get(key) == i ? insertedByKey.get(key) : null;
+            results.add(BatchReviewResult.builder()
+                    .index(i)
+                    .status(review != null ? BatchItemStatus.CREATED : BatchItemStatus.DUPLICATE)
+                    .review(review != null ? reviewMapper.toReviewResponse(review) : null)
+                    .build());
+        }
+        return CreateReviewsBatchResponse.builder()
+                .created(inserted.size())
+                .duplicates(items.size() - inserted.size())
+                .results(results)
+                .build();
     }
 
     @Override
@@ -61,15 +107,57 @@ public class ReviewServiceImpl implements ReviewService {
         return reviewMapper.toReviewResponseList(reviews);
     }
 
+    @Override
+    public List<ReviewResponse> getReviewsOfUser(String username, ReviewCursor cursor, int size) {
+        List<Review> reviews = switch (cursor.sort()) {
+            case DATE_ASC -> reviewRepository.findAllByCreatedByAfter(username, cursor.createdAt(), cursor.id(), size);
+            case DATE_DESC -> reviewRepository.findAllByCreatedByBefore(username, cursor.createdAt(), cursor.id(), size);
+        };
+        return reviewMapper.toReviewResponseList(reviews);
+    }
+
+    // без общей транзакции: вызовы, ожидающие уже выполняющийся запрос, не занимают соединения из пула
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     @Override
     public RatedReviewsResponse getRatedReviewsForMenu(Long menuId, SortBy sort, int from, int size) {
-        var pageable = getPageable(sort, from, size);
-        var reviews = reviewMapper
-                .toReviewResponseList(reviewRepository.findAllByMenuId(menuId, pageable));
+        return menuReviewsSingleFlight.execute(MenuReviewsQuery.page(menuId, sort, from, size), () -> {
+            var pageable = getPageable(sort, from, size);
+            return toRatedReviewsResponse(menuId, reviewRepository.findAllByMenuId(menuId, pageable));
+        });
+    }
+
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    @Override
+    public RatedReviewsResponse getRatedReviewsForMenu(Long menuId, ReviewCursor cursor, int size) {
+        return menuReviewsSingleFlight.execute(MenuReviewsQuery.afterCursor(menuId, cursor, size), () -> {
+            List<Review> reviews = switch (cursor.sort()) {
+                case DATE_ASC -> reviewRepository.findAllByMenuIdAfter(menuId, cursor.createdAt(), cursor.id(), size);
+                case DATE_DESC -> reviewRepository.findAllByMenuIdBefore(menuId, cursor.createdAt(), cursor.id(), size);
+            };
+            return toRatedReviewsResponse(menuId, reviews);
+        });
+    }
+
+    @Override
+    public void exportReviewsOfMenu(Long menuId, Consumer<ReviewResponse> consumer) {
+        // курсор PostgreSQL с fetch size работает только внутри транзакции, поэтому поток читается в ней целиком
+        try (Stream<ReviewResponse> reviews = reviewRepository.streamAllByMenuId(menuId)) {
+            reviews.forEach(consumer);
+        }
+    }
+
+    @Override
+    public void exportReviewsOfUser(String username, Consumer<ReviewResponse> consumer) {
+        try (Stream<ReviewResponse> reviews = reviewRepository.streamAllByCreatedBy(username)) {
+            reviews.forEach(consumer);
+        }
+    }
+
+    private RatedReviewsResponse toRatedReviewsResponse(Long menuId, List<Review> reviews) {
         var ratingInfo = ratingService.getRatingOfMenu(menuId);
 
         return RatedReviewsResponse.builder()
-                .reviews(reviews)
+                .reviews(reviewMapper.toReviewResponseList(reviews))
                 .menuRating(ratingInfo)
                 .build();
     }
@@ -82,4 +170,7 @@ public class ReviewServiceImpl implements ReviewService {
     private void saveRating(CreateReviewRequest request) {
         ratingService.saveRating(request.getMenuId(), request.getRate());
     }
+
+    private record ReviewKey(Long menuId, String createdBy) {
+    }
 }
\ No newline at end of file
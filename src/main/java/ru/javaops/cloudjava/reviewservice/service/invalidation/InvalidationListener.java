@@ -0,0 +1,182 @@
+package ru.javaops.cloudjava.reviewservice.service.invalidation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import ru.javaops.cloudjava.reviewservice.service.cache.MenuRatingCache;
+import ru.javaops.cloudjava.reviewservice.service.rating.RatingsChangedEvent;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Получает уведомления других экземпляров сервиса на отдельном соединении, не занимающем соединение из пула,
+ * и публикует их как событие {@link RatingsChangedEvent} с признаком remote:
+ * его слушатели сбрасывают кэш рейтингов, обновляют список лучших блюд и рассылают изменения подписчикам.
+ * Все уведомления, полученные за одно ожидание, объединяются в одно событие.
+ * <p>
+ * Уведомления, отправленные, пока соединение было разорвано, не доставляются, поэтому после
+ * переподключения кэш рейтингов сбрасывается целиком.
+ * <p>
+ * Соединение открывается по {@link JdbcConnectionDetails}, как и пул основного сервера, поэтому учитывает
+ * подключения, заданные через @ServiceConnection.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.invalidation.enabled", havingValue = "true")
+public class InvalidationListener implements SmartLifecycle {
+
+    private final JdbcConnectionDetails connectionDetails;
+    private final InvalidationPublisher publisher;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MenuRatingCache cache;
+    private final Duration pollTimeout;
+    private final Duration reconnectDelay;
+    private volatile boolean running;
+    private volatile boolean listening;
+    private Thread thread;
+
+    public InvalidationListener(ObjectProvider<JdbcConnectionDetails> connectionDetails,
+                                DataSourceProperties dataSourceProperties,
+                                InvalidationPublisher publisher,
+                                ApplicationEventPublisher eventPublisher,
+                                MenuRatingCache cache,
+                                @Value("${app.invalidation.poll-timeout:1s}") Duration pollTimeout,
+                                @Value("${app.invalidation.reconnect-delay:5s}") Duration reconnectDelay) {
+        // Spring Boot не создает JdbcConnectionDetails, если DataSource объявлен в приложении (режим реплик)
+        this.connectionDetails = connectionDetails.getIfAvailable(() -> new PropertiesConnectionDetails(dataSourceProperties));
+        this.publisher = publisher;
+        this.eventPublisher = eventPublisher;
+        this.cache = cache;
+        this.pollTimeout = pollTimeout;
+        this.reconnectDelay = reconnectDelay;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        thread = Thread.ofPlatform()
+                .name("invalidation-listener")
+                .daemon()
+                .start(this::listen);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join(pollTimeout.toMillis() * 2);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Соединение открыто и подписано на канал уведомлений.
+     */
+    public boolean isListening() {
+        return listening;
+    }
+
+    private void listen() {
+        boolean reconnect = false;
+        while (running) {
+            try (Connection connection = connect()) {
+                try (var statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + InvalidationPublisher.CHANNEL);
+                }
+                listening = true;
+                if (reconnect) {
+                    log.info("Invalidation listener reconnected, dropping local caches");
+                    cache.invalidateAll();
+                }
+                var pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) pollTimeout.toMillis());
+                    if (notifications != null && notifications.length > 0) {
+                        handle(notifications);
+                    }
+                }
+            } catch (SQLException | RuntimeException ex) {
+                listening = false;
+                if (!running) {
+                    return;
+                }
+                log.warn("Invalidation listener failed, reconnecting in {}", reconnectDelay, ex);
+                reconnect = true;
+                try {
+                    Thread.sleep(reconnectDelay);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+        listening = false;
+    }
+
+    private Connection connect() throws SQLException {
+        return DriverManager.getConnection(connectionDetails.getJdbcUrl(),
+                connectionDetails.getUsername(),
+                connectionDetails.getPassword());
+    }
+
+    private void handle(PGNotification[] notifications) {
+        Set<Long> ratings = new HashSet<>();
+        for (PGNotification notification : notifications) {
+            InvalidationMessage message;
+            try {
+                message = InvalidationMessage.decode(notification.getParameter());
+            } catch (IllegalArgumentException ex) {
+                log.warn("Skipping malformed invalidation notification: {}", notification.getParameter());
+                continue;
+            }
+            if (!message.instanceId().equals(publisher.instanceId())) {
+                ratings.addAll(message.ratingMenuIds());
+            }
+        }
+        // ошибка слушателя события не должна разрывать соединение и сбрасывать кэши целиком
+        try {
+            if (!ratings.isEmpty()) {
+                eventPublisher.publishEvent(new RatingsChangedEvent(ratings, true));
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Failed to apply invalidation of {} ratings", ratings.size(), ex);
+        }
+    }
+
+    private record PropertiesConnectionDetails(DataSourceProperties properties) implements JdbcConnectionDetails {
+
+        @Override
+        public String getUsername() {
+            return properties.determineUsername();
+        }
+
+        @Override
+        public String getPassword() {
+            return properties.determinePassword();
+        }
+
+        @Override
+        public String getJdbcUrl() {
+            return properties.determineUrl();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package ru.javaops.cloudjava.reviewservice.service.invalidation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Уведомление об изменениях, сделанных экземпляром сервиса: блюда с измененными рейтингами.
+ * Передается строкой вида instanceId|1,2,3.
+ */
+public record InvalidationMessage(String instanceId, List<Long> ratingMenuIds) {
+    /**
+     * Размер уведомления PostgreSQL ограничен 8000 байтами.
+     */
+    public static final int MAX_PAYLOAD_LENGTH = 7900;
+    private static final String SECTION_DELIMITER = "|";
+    private static final String ID_DELIMITER = ",";
+
+    /**
+     * Кодирует изменения в одну или несколько строк не длиннее maxLength символов.
+     */
+    public static List<String> encode(String instanceId, Collection<Long> ratingMenuIds, int maxLength) {
+        List<String> payloads = new ArrayList<>();
+        var ratings = new StringBuilder();
+        int prefixLength = instanceId.length() + SECTION_DELIMITER.length();
+        for (Long menuId : ratingMenuIds) {
+            String id = menuId.toString();
+            if (!ratings.isEmpty() && prefixLength + ratings.length() + ID_DELIMITER.length() + id.length() > maxLength) {
+                payloads.add(join(instanceId, ratings));
+                ratings.setLength(0);
+            }
+            if (!ratings.isEmpty()) {
+                ratings.append(ID_DELIMITER);
+            }
+            ratings.append(id);
+        }
+        if (!ratings.isEmpty()) {
+            payloads.add(join(instanceId, ratings));
+        }
+        return payloads;
+    }
+
+    public static InvalidationMessage decode(String payload) {
+        String[] sections = payload.split("\\" + SECTION_DELIMITER, -1);
+        if (sections.length != 2) {
+            throw new IllegalArgumentException("Unexpected number of sections in invalidation message: " + payload);
+        }
+        return new InvalidationMessage(sections[0], ids(sections[1]));
+    }
+
+    private static String join(String instanceId, CharSequence ratings) {
+        return instanceId + SECTION_DELIMITER + ratings;
+    }
+
+    private static List<Long> ids(String section) {
+        if (section.isEmpty()) {
+            return List.of();
+        }
+        return Arrays.stream(section.split(ID_DELIMITER))
+                .map(Long::valueOf)
+                .toList();
+    }
+}
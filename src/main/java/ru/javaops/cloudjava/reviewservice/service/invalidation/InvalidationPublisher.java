@@ -0,0 +1,89 @@
+package ru.javaops.cloudjava.reviewservice.service.invalidation;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.javaops.cloudjava.reviewservice.service.rating.RatingsChangedEvent;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Сообщает другим экземплярам сервиса об изменениях рейтингов через NOTIFY.
+ * <p>
+ * После фиксации транзакции блюда только запоминаются, а раз в интервал отправляются одним запросом:
+ * NOTIFY в каждой транзакции записи сериализовал бы фиксацию транзакций на блокировке очереди уведомлений.
+ * Уведомления, не отправленные из-за падения сервиса, теряются: устаревание данных других экземпляров
+ * в этом случае ограничивает время жизни кэша рейтингов.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.invalidation.enabled", havingValue = "true")
+public class InvalidationPublisher {
+    public static final String CHANNEL = "review_service_invalidation";
+    static final String NOTIFY_SQL = "SELECT pg_notify(?, payload) FROM unnest(?::text[]) AS payload";
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Set<Long> changedRatings = ConcurrentHashMap.newKeySet();
+    private final JdbcTemplate jdbcTemplate;
+
+    public InvalidationPublisher(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public String instanceId() {
+        return instanceId;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRatingsChanged(RatingsChangedEvent event) {
+        if (!event.remote()) {
+            changedRatings.addAll(event.menuIds());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.invalidation.flush-interval-ms:100}")
+    public void flush() {
+        Set<Long> ratings = drain(changedRatings);
+        if (ratings.isEmpty()) {
+            return;
+        }
+        List<String> payloads = InvalidationMessage.encode(instanceId, ratings, InvalidationMessage.MAX_PAYLOAD_LENGTH);
+        try {
+            // вне транзакции: уведомления доставляются сразу после выполнения запроса
+            jdbcTemplate.query(NOTIFY_SQL, (PreparedStatement ps) -> {
+                ps.setString(1, CHANNEL);
+                ps.setArray(2, ps.getConnection().createArrayOf("text", payloads.toArray()));
+            }, (ResultSet rs) -> {
+            });
+            log.debug("Sent {} invalidation notifications for {} ratings", payloads.size(), ratings.size());
+        } catch (RuntimeException ex) {
+            log.warn("Failed to send invalidation notifications, they will be retried", ex);
+            changedRatings.addAll(ratings);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private static Set<Long> drain(Set<Long> source) {
+        Set<Long> drained = new HashSet<>();
+        for (Iterator<Long> iterator = source.iterator(); iterator.hasNext(); ) {
+            drained.add(iterator.next());
+            iterator.remove();
+        }
+        return drained;
+    }
+}
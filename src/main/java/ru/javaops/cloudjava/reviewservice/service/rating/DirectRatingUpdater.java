@@ -0,0 +1,36 @@
+package ru.javaops.cloudjava.reviewservice.service.rating;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import ru.javaops.cloudjava.reviewservice.storage.model.RatingIncrement;
+import ru.javaops.cloudjava.reviewservice.storage.repositories.RatingRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(name = "app.rating.update-mode", havingValue = "direct", matchIfMissing = true)
+@RequiredArgsConstructor
+public class DirectRatingUpdater implements RatingUpdater {
+
+    private final RatingRepository repository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void updateRating(Long menuId, Integer rate) {
+        repository.upsertRating(menuId, rate);
+        eventPublisher.publishEvent(new RatingsChangedEvent(List.of(menuId)));
+    }
+
+    @Override
+    public void updateRatings(Collection<RatingIncrement> increments) {
+        if (increments.isEmpty()) {
+            return;
+        }
+        repository.applyIncrements(increments);
+        eventPublisher.publishEvent(new RatingsChangedEvent(
+                increments.stream().map(RatingIncrement::menuId).toList()));
+    }
+}
@@ -0,0 +1,32 @@
+package ru.javaops.cloudjava.reviewservice.service.rating;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.javaops.cloudjava.reviewservice.storage.model.RatingIncrement;
+import ru.javaops.cloudjava.reviewservice.storage.repositories.RatingRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Записывает оценки в таблицу rating_outbox в транзакции создания отзыва. Строку рейтинга блюда
+ * запрос не блокирует, оценки применяет к ratings {@link RatingOutboxConsumer}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.rating.update-mode", havingValue = "outbox")
+@RequiredArgsConstructor
+public class OutboxRatingUpdater implements RatingUpdater {
+
+    private final RatingRepository repository;
+
+    @Override
+    public void updateRating(Long menuId, Integer rate) {
+        repository.appendToOutbox(List.of(RatingIncrement.of(menuId, rate)));
+    }
+
+    @Override
+    public void updateRatings(Collection<RatingIncrement> increments) {
+        repository.appendToOutbox(increments);
+    }
+}
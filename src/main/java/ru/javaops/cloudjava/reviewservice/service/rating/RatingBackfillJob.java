@@ -0,0 +1,211 @@
+package ru.javaops.cloudjava.reviewservice.service.rating;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.javaops.cloudjava.reviewservice.dto.RatingBackfillState;
+import ru.javaops.cloudjava.reviewservice.dto.RatingBackfillStatus;
+import ru.javaops.cloudjava.reviewservice.exception.ReviewServiceException;
+import ru.javaops.cloudjava.reviewservice.storage.model.MenuIdRange;
+import ru.javaops.cloudjava.reviewservice.storage.model.RatingRecalculation;
+import ru.javaops.cloudjava.reviewservice.storage.repositories.RatingRepository;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Пересчитывает все рейтинги по таблице reviews.
+ * <p>
+ * Диапазон идентификаторов блюд делится на отрезки по chunk-size блюд, которые разбирают parallelism потоков.
+ * Каждый отрезок пересчитывается в отдельной короткой транзакции: строки ratings отрезка блокируются до
+ * подсчета отзывов, поэтому параллельно созданный отзыв либо уже учтен в подсчете, либо увеличит счетчик
+ * после фиксации пересчета. Остальные блюда в это время доступны для создания отзывов.
+ * Данные отрезка не покидают БД, поэтому память не зависит от количества отзывов.
+ */
+@Slf4j
+@Component
+public class RatingBackfillJob {
+
+    private final AtomicReference<Progress> current = new AtomicReference<>();
+    private final RatingRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String updateMode;
+    private final int parallelism;
+    private final int chunkSize;
+
+    public RatingBackfillJob(RatingRepository repository,
+                             TransactionTemplate transactionTemplate,
+                             ApplicationEventPublisher eventPublisher,
+                             @Value("${app.rating.update-mode:direct}") String updateMode,
+                             @Value("${app.rating.backfill.parallelism:4}") int parallelism,
+                             @Value("${app.rating.backfill.chunk-size:500}") int chunkSize) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.updateMode = updateMode;
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Запускает пересчет в фоне. Возвращает future, завершающийся итоговым состоянием пересчета.
+     */
+    public CompletableFuture<RatingBackfillStatus> start() {
+        if (!"direct".equals(updateMode)) {
+            // оценки, накопленные в памяти, уже учтены в reviews, и после сброса они были бы посчитаны дважды
+            throw new ReviewServiceException("Rating backfill is available only in direct rating update mode.",
+                    HttpStatus.CONFLICT);
+        }
+        var previous = current.get();
+        if (previous != null && previous.state == RatingBackfillState.RUNNING) {
+            throw new ReviewServiceException("Rating backfill is already running.", HttpStatus.CONFLICT);
+        }
+        var range = repository.findMenuIdRange().orElse(new MenuIdRange(0, 0));
+        var progress = new Progress(range, chunkSize);
+        if (!current.compareAndSet(previous, progress)) {
+            throw new ReviewServiceException("Rating backfill is already running.", HttpStatus.CONFLICT);
+        }
+        log.info("Starting rating backfill of menus [{}, {}) in {} chunks with {} workers",
+                range.from(), range.to(), progress.chunksTotal, parallelism);
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+                Thread.ofPlatform().name("rating-backfill-", 0).factory());
+        var workers = new CompletableFuture<?>[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            workers[i] = CompletableFuture.runAsync(() -> work(progress), executor);
+        }
+        return CompletableFuture.allOf(workers)
+                .handle((ignored, ex) -> {
+                    executor.shutdown();
+                    progress.finish(ex == null ? null : ex.getCause() != null ? ex.getCause() : ex);
+                    var status = progress.toStatus();
+                    if (status.getState() == RatingBackfillState.COMPLETED) {
+                        log.info("Rating backfill completed: {} menus, {} reviews, {} ratings corrected, {} reviews/s",
+                                status.getMenusProcessed(), status.getReviewsScanned(),
+                                status.getRatingsCorrected(), status.getReviewsPerSecond());
+                    } else {
+                        log.error("Rating backfill failed after {} of {} chunks: {}",
+                                status.getChunksDone(), status.getChunksTotal(), status.getError());
+                    }
+                    return status;
+                });
+    }
+
+    public Optional<RatingBackfillStatus> status() {
+        return Optional.ofNullable(current.get()).map(Progress::toStatus);
+    }
+
+    private void work(Progress progress) {
+        MenuIdRange chunk;
+        while (progress.state == RatingBackfillState.RUNNING && (chunk = progress.nextChunk()) != null) {
+            var range = chunk;
+            try {
+                var recalculation = transactionTemplate.execute(status -> recalculate(range));
+                progress.chunkDone(recalculation);
+            } catch (RuntimeException ex) {
+                progress.fail(ex);
+                throw ex;
+            }
+        }
+    }
+
+    private RatingRecalculation recalculate(MenuIdRange range) {
+        repository.insertMissingRatings(range);
+        // блокировки берутся отдельным запросом: подсчет отзывов в следующем запросе видит все транзакции,
+        // зафиксированные до получения блокировок, в том числе те, что успели обновить рейтинг отрезка
+        repository.lockRatings(range);
+        var recalculation = repository.recalculateRatings(range);
+        if (!recalculation.correctedMenuIds().isEmpty()) {
+            eventPublisher.publishEvent(new RatingsChangedEvent(recalculation.correctedMenuIds()));
+        }
+        return recalculation;
+    }
+
+    private static final class Progress {
+        private final Instant startedAt = Instant.now();
+        private final long startedNanos = System.nanoTime();
+        private final MenuIdRange range;
+        private final int chunkSize;
+        private final long chunksTotal;
+        private final AtomicLong nextFrom;
+        private final LongAdder chunksDone = new LongAdder();
+        private final LongAdder menus = new LongAdder();
+        private final LongAdder reviews = new LongAdder();
+        private final LongAdder corrected = new LongAdder();
+        private volatile RatingBackfillState state = RatingBackfillState.RUNNING;
+        private volatile Instant finishedAt;
+        private volatile long finishedNanos;
+        private volatile String error;
+
+        private Progress(MenuIdRange range, int chunkSize) {
+            this.range = range;
+            this.chunkSize = chunkSize;
+            this.chunksTotal = (range.to() - range.from() + chunkSize - 1) / chunkSize;
+            this.nextFrom = new AtomicLong(range.from());
+        }
+
+        private MenuIdRange nextChunk() {
+            long from = nextFrom.getAndAdd(chunkSize);
+            return from < range.to() ? new MenuIdRange(from, Math.min(from + chunkSize, range.to())) : null;
+        }
+
+        private void chunkDone(RatingRecalculation recalculation) {
+            menus.add(recalculation.menus());
+            reviews.add(recalculation.reviews());
+            corrected.add(recalculation.correctedMenuIds().size());
+            chunksDone.increment();
+            long done = chunksDone.sum();
+            if (done % Math.max(1, chunksTotal / 10) == 0) {
+                log.info("Rating backfill progress: {}/{} chunks, {} reviews/s", done, chunksTotal, reviewsPerSecond());
+            }
+        }
+
+        private void fail(Throwable ex) {
+            error = ex.getMessage();
+            state = RatingBackfillState.FAILED;
+        }
+
+        private void finish(Throwable ex) {
+            if (ex != null && state != RatingBackfillState.FAILED) {
+                fail(ex);
+            }
+            finishedNanos = System.nanoTime();
+            finishedAt = Instant.now();
+            if (state == RatingBackfillState.RUNNING) {
+                state = RatingBackfillState.COMPLETED;
+            }
+        }
+
+        private long reviewsPerSecond() {
+            long end = finishedAt == null ? System.nanoTime() : finishedNanos;
+            long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(end - startedNanos));
+            return reviews.sum() * 1000 / elapsedMillis;
+        }
+
+        private RatingBackfillStatus toStatus() {
+            return RatingBackfillStatus.builder()
+                    .state(state)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .chunksTotal(chunksTotal)
+                    .chunksDone(chunksDone.sum())
+                    .menusProcessed(menus.sum())
+                    .reviewsScanned(reviews.sum())
+                    .ratingsCorrected(corrected.sum())
+                    .reviewsPerSecond(reviewsPerSecond())
+                    .error(error)
+                    .build();
+        }
+    }
+}
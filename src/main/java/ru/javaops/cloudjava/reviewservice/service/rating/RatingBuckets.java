@@ -0,0 +1,36 @@
+package ru.javaops.cloudjava.reviewservice.service.rating;
+
+import ru.javaops.cloudjava.reviewservice.storage.model.RatingIncrement;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счетчики оценок блюда. WriteBehindRatingAggregator изменяет и сбрасывает их внутри compute
+ * ConcurrentHashMap, поэтому инкремент не теряется между сбросами.
+ */
+class RatingBuckets {
+    private final LongAdder[] buckets = {
+            new LongAdder(), new LongAdder(), new LongAdder(), new LongAdder(), new LongAdder()
+    };
+
+    void increment(int rate) {
+        buckets[rate - 1].increment();
+    }
+
+    void add(RatingIncrement increment) {
+        buckets[0].add(increment.one());
+        buckets[1].add(increment.two());
+        buckets[2].add(increment.three());
+        buckets[3].add(increment.four());
+        buckets[4].add(increment.five());
+    }
+
+    RatingIncrement drain(Long menuId) {
+        return new RatingIncrement(menuId,
+                (int) buckets[0].sumThenReset(),
+                (int) buckets[1].sumThenReset(),
+                (int) buckets[2].sumThenReset(),
+                (int) buckets[3].sumThenReset(),
+                (int) buckets[4].sumThenReset());
+    }
+}
@@ -0,0 +1,136 @@
+package ru.javaops.cloudjava.reviewservice.service.rating;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.javaops.cloudjava.reviewservice.dto.RankedMenuRating;
+import ru.javaops.cloudjava.reviewservice.storage.model.MenuRatingInfo;
+import ru.javaops.cloudjava.reviewservice.storage.repositories.RatingRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Блюда, упорядоченные по рейтингу Уилсона, в памяти сервиса.
+ * <p>
+ * Порядок хранится в skip list, поэтому чтение первых N мест обходит N элементов без сортировки
+ * и без обращения к БД. При старте список строится по таблице ratings, затем обновляется после
+ * фиксации каждой транзакции, изменившей рейтинги. Блюда без оценок в список не попадают.
+ * При обновлении рейтинга блюдо на мгновение пропадает из списка, читатели при этом не блокируются.
+ * <p>
+ * Две транзакции, изменившие одно блюдо, перечитывают рейтинги параллельно, и результаты чтений
+ * могут прийти в обратном порядке. Поэтому каждое чтение получает номер до начала запроса, а
+ * запись блюда хранит номер чтения, по которому она построена: результат чтения с меньшим номером
+ * не заменяет более поздний. Запрос с большим номером начался позже и в READ COMMITTED видит все,
+ * что видели запросы с меньшими номерами. {@code change_version} для этого не подходит: xid
+ * выдается в начале транзакции, и строку может последней изменить транзакция с меньшим xid.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RatingLeaderboard {
+    private static final Comparator<Entry> BY_RANK = Comparator.comparing(Entry::wilsonScore, Comparator.reverseOrder())
+            .thenComparing(Entry::menuId);
+
+    private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(BY_RANK);
+    // записи всех прочитанных блюд, в том числе без оценок: номер чтения нужен и для них
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong reads = new AtomicLong();
+    private final RatingRepository repository;
+    private final TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void rebuild() {
+        entries.clear();
+        ranking.clear();
+        transactionTemplate.executeWithoutResult(status -> {
+            long read = nextRead();
+            try (var ratings = repository.streamAllRated()) {
+                ratings.forEach(rating -> update(rating, read));
+            }
+        });
+        log.info("Built rating leaderboard of {} menus", size());
+    }
+
+    /**
+     * Возвращает size блюд, начиная с места from * size + 1. Обходит from * size + size элементов.
+     */
+    public List<RankedMenuRating> getTop(int from, int size) {
+        long skip = (long) from * size;
+        Iterator<Entry> iterator = ranking.iterator();
+        for (long i = 0; i < skip && iterator.hasNext(); i++) {
+            iterator.next();
+        }
+        List<RankedMenuRating> result = new ArrayList<>(size);
+        long rank = skip;
+        while (result.size() < size && iterator.hasNext()) {
+            var entry = iterator.next();
+            result.add(RankedMenuRating.builder()
+                    .rank(++rank)
+                    .menuId(entry.menuId())
+                    .wilsonScore(entry.wilsonScore())
+                    .avgStars(entry.avgStars())
+                    .build());
+        }
+        return result;
+    }
+
+    /**
+     * Число блюд в списке. Обходит весь список, поэтому предназначен для логов и тестов.
+     */
+    public int size() {
+        return ranking.size();
+    }
+
+    // событие приходит после фиксации транзакции, поэтому актуальные рейтинги читаются в новой транзакции.
+    // Транзакция не readOnly, чтобы читать с основного сервера: реплика может еще не получить изменение
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRatingsChanged(RatingsChangedEvent event) {
+        long read = nextRead();
+        repository.findRatingInfosByMenuIdIn(new HashSet<>(event.menuIds()))
+                .forEach(rating -> update(rating, read));
+    }
+
+    // номер берется до запроса: снимок запроса в READ COMMITTED создается при его начале
+    long nextRead() {
+        return reads.incrementAndGet();
+    }
+
+    void update(MenuRatingInfo rating, long read) {
+        entries.compute(rating.getMenuId(), (menuId, previous) -> {
+            if (previous != null) {
+                if (previous.read() > read) {
+                    return previous;
+                }
+                if (previous.ranked()) {
+                    ranking.remove(previous);
+                }
+            }
+            var entry = new Entry(menuId, rating.getWilsonScore(), rating.getAvgStars(), read);
+            if (entry.ranked()) {
+                ranking.add(entry);
+            }
+            return entry;
+        });
+    }
+
+    private record Entry(long menuId, float wilsonScore, float avgStars, long read) {
+
+        // средняя оценка не меньше 1.0, если у блюда есть хотя бы одна оценка
+        boolean ranked() {
+            return avgStars > 0;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package ru.javaops.cloudjava.reviewservice.service.rating;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.javaops.cloudjava.reviewservice.storage.model.RatingIncrement;
+import ru.javaops.cloudjava.reviewservice.storage.model.RatingOutboxBacklog;
+import ru.javaops.cloudjava.reviewservice.storage.model.RatingOutboxEntry;
+import ru.javaops.cloudjava.reviewservice.storage.repositories.RatingRepository;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Применяет оценки из rating_outbox к таблице ratings пачками.
+ * <p>
+ * Пачка удаляется из outbox и применяется к ratings в одной транзакции: при ошибке откатываются оба действия,
+ * и оценки будут применены следующим извлечением, поэтому каждая оценка учитывается ровно один раз.
+ * Извлечение пропускает строки, заблокированные другими транзакциями, поэтому оценки можно применять
+ * на нескольких экземплярах сервиса одновременно.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.rating.update-mode", havingValue = "outbox")
+public class RatingOutboxConsumer {
+    public static final String LAG_TIMER = "rating.outbox.lag";
+    public static final String FAILURES_COUNTER = "rating.outbox.failures";
+
+    private final RatingRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final Timer lagTimer;
+    private final Counter failures;
+    private volatile Measurement backlog = new Measurement(new RatingOutboxBacklog(0, Duration.ZERO), System.nanoTime());
+
+    public RatingOutboxConsumer(RatingRepository repository,
+                                TransactionTemplate transactionTemplate,
+                                ApplicationEventPublisher eventPublisher,
+                                MeterRegistry registry,
+                                @Value("${app.rating.outbox.batch-size:1000}") int batchSize) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.lagTimer = Timer.builder(LAG_TIMER)
+                .description("Time from writing a rating to the outbox until it is applied to ratings")
+                .register(registry);
+        this.failures = Counter.builder(FAILURES_COUNTER)
+                .description("Drains of the outbox that failed")
+                .register(registry);
+        Gauge.builder("rating.outbox.pending", this, consumer -> consumer.backlog.backlog().pending())
+                .description("Ratings waiting in the outbox at the last measurement")
+                .register(registry);
+        Gauge.builder("rating.outbox.oldest.age", this, consumer -> consumer.backlog.oldestAge().toMillis() / 1000.0)
+                .description("Age of the oldest rating waiting in the outbox, growing while the outbox cannot be measured")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    /**
+     * Применяет пачки, пока outbox не опустеет, и обновляет метрики очереди.
+     * Метрики очереди обновляются и после ошибки применения, чтобы растущая очередь была видна.
+     */
+    @Scheduled(fixedDelayString = "${app.rating.outbox.poll-interval-ms:200}")
+    public void drain() {
+        int applied = 0;
+        try {
+            int drained;
+            do {
+                drained = drainBatch();
+                applied += drained;
+            } while (drained == batchSize);
+        } catch (RuntimeException e) {
+            failures.increment();
+            throw e;
+        } finally {
+            refreshBacklog();
+        }
+        if (applied > 0) {
+            log.debug("Applied {} ratings from the outbox, {} pending", applied, backlog.backlog().pending());
+        }
+    }
+
+    // если БД недоступна, остается прошлое измерение: возраст самой старой записи продолжает расти от него
+    private void refreshBacklog() {
+        try {
+            backlog = new Measurement(repository.findOutboxBacklog(), System.nanoTime());
+        } catch (RuntimeException e) {
+            log.warn("Failed to measure the rating outbox backlog", e);
+        }
+    }
+
+    /**
+     * Применяет одну пачку и возвращает количество извлеченных записей.
+     */
+    public int drainBatch() {
+        List<RatingOutboxEntry> entries = transactionTemplate.execute(status -> {
+            var batch = repository.drainOutbox(batchSize);
+            if (!batch.isEmpty()) {
+                Map<Long, RatingIncrement> increments = new HashMap<>();
+                batch.forEach(entry -> increments.merge(entry.increment().menuId(), entry.increment(), RatingIncrement::plus));
+                repository.applyIncrements(increments.values());
+                eventPublisher.publishEvent(new RatingsChangedEvent(List.copyOf(increments.keySet())));
+            }
+            return batch;
+        });
+        // задержку учитываем только для зафиксированных пачек
+        entries.forEach(entry -> lagTimer.record(entry.lag()));
+        return entries.size();
+    }
+
+    public RatingOutboxBacklog backlog() {
+        return backlog.backlog();
+    }
+
+    private record Measurement(RatingOutboxBacklog backlog, long measuredAtNanos) {
+
+        Duration oldestAge() {
+            if (backlog.pending() == 0) {
+                return Duration.ZERO;
+            }
+            return backlog.oldestAge().plusNanos(System.nanoTime() - measuredAtNanos);
+        }
+    }
+}
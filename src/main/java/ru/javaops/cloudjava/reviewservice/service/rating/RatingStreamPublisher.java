@@ -0,0 +1,203 @@
+package ru.javaops.cloudjava.reviewservice.service.rating;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.javaops.cloudjava.reviewservice.dto.GetRatingsRequest;
+import ru.javaops.cloudjava.reviewservice.service.RatingService;
+import ru.javaops.cloudjava.reviewservice.storage.model.MenuRatingInfo;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Рассылает подписчикам изменения рейтингов блюд.
+ * <p>
+ * После фиксации транзакции, изменившей рейтинги, блюда с подписчиками только отмечаются как измененные.
+ * Раз в интервал рейтинги отмеченных блюд читаются одним запросом и рассылаются подписчикам,
+ * поэтому сколько бы оценок блюдо ни получило за интервал, подписчик получит не больше одного обновления.
+ * <p>
+ * Поток планировщика общий для всех @Scheduled задач, поэтому он только ставит обновления в ограниченные
+ * очереди подписчиков. Обработчики вызываются в виртуальных потоках, по одному на подписчика с непустой очередью:
+ * медленный клиент задерживает только свои обновления. Подписчик, очередь которого переполнилась,
+ * отписывается, и вызывается его onOverflow, чтобы клиент переподключился и получил текущие рейтинги.
+ */
+@Slf4j
+@Component
+public class RatingStreamPublisher {
+
+    private final ConcurrentHashMap<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Set<Long> changed = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService deliveryExecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("rating-stream-", 0).factory());
+    private final RatingService ratingService;
+    private final Duration timeout;
+    private final int maxPendingUpdates;
+
+    public RatingStreamPublisher(RatingService ratingService,
+                                 MeterRegistry registry,
+                                 @Value("${app.rating.stream.timeout:30m}") Duration timeout,
+                                 @Value("${app.rating.stream.max-pending-updates:16}") int maxPendingUpdates) {
+        this.ratingService = ratingService;
+        this.timeout = timeout;
+        this.maxPendingUpdates = maxPendingUpdates;
+        Gauge.builder("rating.stream.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Clients subscribed to rating changes")
+                .register(registry);
+    }
+
+    /**
+     * Подписывает listener на изменения рейтингов menuIds. Возвращает действие, отменяющее подписку.
+     * Исключение из listener отменяет подписку, а переполнение очереди обновлений еще и вызывает onOverflow.
+     */
+    public Runnable subscribe(Collection<Long> menuIds, Consumer<List<MenuRatingInfo>> listener, Runnable onOverflow) {
+        var subscriber = new Subscriber(Set.copyOf(menuIds), listener, onOverflow, maxPendingUpdates);
+        subscriber.menuIds.forEach(menuId -> subscribers.compute(menuId, (id, menuSubscribers) -> {
+            var result = menuSubscribers == null ? ConcurrentHashMap.<Subscriber>newKeySet() : menuSubscribers;
+            result.add(subscriber);
+            return result;
+        }));
+        subscriberCount.incrementAndGet();
+        return () -> unsubscribe(subscriber);
+    }
+
+    /**
+     * Время жизни подписки клиента API, после которого клиент подписывается заново.
+     */
+    public Duration timeout() {
+        return timeout;
+    }
+
+    /**
+     * Количество обновлений, которые могут ждать доставки подписчику, прежде чем он будет отписан.
+     */
+    public int maxPendingUpdates() {
+        return maxPendingUpdates;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRatingsChanged(RatingsChangedEvent event) {
+        for (Long menuId : event.menuIds()) {
+            if (subscribers.containsKey(menuId)) {
+                changed.add(menuId);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.rating.stream.interval-ms:1000}")
+    public void publish() {
+        Set<Long> menuIds = new HashSet<>();
+        for (Iterator<Long> iterator = changed.iterator(); iterator.hasNext(); ) {
+            menuIds.add(iterator.next());
+            iterator.remove();
+        }
+        if (menuIds.isEmpty()) {
+            return;
+        }
+        var ratings = ratingService.getRatingsOfMenus(GetRatingsRequest.builder().menuIds(menuIds).build())
+                .getMenuRatings();
+        // подписчики сравниваются по ссылке: у каждого свой список обновлений
+        Map<Subscriber, List<MenuRatingInfo>> updates = new HashMap<>();
+        for (MenuRatingInfo rating : ratings) {
+            var menuSubscribers = subscribers.get(rating.getMenuId());
+            if (menuSubscribers != null) {
+                menuSubscribers.forEach(subscriber ->
+                        updates.computeIfAbsent(subscriber, s -> new ArrayList<>()).add(rating));
+            }
+        }
+        updates.forEach(this::enqueue);
+    }
+
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        deliveryExecutor.shutdownNow();
+    }
+
+    private void enqueue(Subscriber subscriber, List<MenuRatingInfo> ratings) {
+        if (!subscriber.pending.offer(ratings)) {
+            log.debug("Subscriber of menus {} does not keep up with rating changes, unsubscribing", subscriber.menuIds);
+            if (unsubscribe(subscriber)) {
+                deliveryExecutor.execute(subscriber.onOverflow);
+            }
+            return;
+        }
+        if (subscriber.delivering.compareAndSet(false, true)) {
+            deliveryExecutor.execute(() -> deliver(subscriber));
+        }
+    }
+
+    private void deliver(Subscriber subscriber) {
+        while (true) {
+            List<MenuRatingInfo> ratings;
+            while ((ratings = subscriber.pending.poll()) != null && subscriber.active.get()) {
+                try {
+                    subscriber.listener.accept(ratings);
+                } catch (RuntimeException ex) {
+                    log.debug("Failed to deliver rating changes, unsubscribing", ex);
+                    unsubscribe(subscriber);
+                }
+            }
+            subscriber.delivering.set(false);
+            // обновление, добавленное после опустошения очереди, но до сброса флага, доставляем сами
+            if (subscriber.pending.isEmpty() || !subscriber.active.get()
+                    || !subscriber.delivering.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    private boolean unsubscribe(Subscriber subscriber) {
+        if (!subscriber.active.compareAndSet(true, false)) {
+            return false;
+        }
+        subscriber.menuIds.forEach(menuId -> subscribers.computeIfPresent(menuId, (id, menuSubscribers) -> {
+            menuSubscribers.remove(subscriber);
+            return menuSubscribers.isEmpty() ? null : menuSubscribers;
+        }));
+        subscriber.pending.clear();
+        subscriberCount.decrementAndGet();
+        return true;
+    }
+
+    private static final class Subscriber {
+        private final Set<Long> menuIds;
+        private final Consumer<List<MenuRatingInfo>> listener;
+        private final Runnable onOverflow;
+        private final BlockingQueue<List<MenuRatingInfo>> pending;
+        private final AtomicBoolean active = new AtomicBoolean(true);
+        private final AtomicBoolean delivering = new AtomicBoolean();
+
+        private Subscriber(Set<Long> menuIds, Consumer<List<MenuRatingInfo>> listener, Runnable onOverflow,
+                           int maxPendingUpdates) {
+            this.menuIds = menuIds;
+            this.listener = listener;
+            this.onOverflow = onOverflow;
+            this.pending = new ArrayBlockingQueue<>(maxPendingUpdates);
+        }
+    }
+}
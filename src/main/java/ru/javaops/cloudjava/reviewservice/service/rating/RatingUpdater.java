@@ -0,0 +1,15 @@
+package ru.javaops.cloudjava.reviewservice.service.rating;
+
+import ru.javaops.cloudjava.reviewservice.storage.model.RatingIncrement;
+
+import java.util.Collection;
+
+public interface RatingUpdater {
+
+    void updateRating(Long menuId, Integer rate);
+
+    /**
+     * Применяет оценки, уже сгруппированные по блюдам: по одному инкременту на блюдо.
+     */
+    void updateRatings(Collection<RatingIncrement> increments);
+}
\ No newline at end of file
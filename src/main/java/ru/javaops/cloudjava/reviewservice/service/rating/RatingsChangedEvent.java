@@ -0,0 +1,15 @@
+package ru.javaops.cloudjava.reviewservice.service.rating;
+
+import java.util.Collection;
+
+/**
+ * Публикуется в транзакции, изменившей рейтинги блюд. Слушатели получают его после фиксации транзакции.
+ *
+ * @param remote рейтинги изменены другим экземпляром сервиса, событие получено через LISTEN/NOTIFY
+ */
+public record RatingsChangedEvent(Collection<Long> menuIds, boolean remote) {
+
+    public RatingsChangedEvent(Collection<Long> menuIds) {
+        this(menuIds, false);
+    }
+}
@@ -0,0 +1,168 @@
+package ru.javaops.cloudjava.reviewservice.service.rating;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.javaops.cloudjava.reviewservice.storage.model.RatingIncrement;
+import ru.javaops.cloudjava.reviewservice.storage.repositories.RatingRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Накапливает оценки в памяти и периодически сбрасывает их в таблицу ratings одним multi-row upsert.
+ * <p>
+ * Источником истины остается таблица reviews: после каждого сброса сохраняется контрольная точка,
+ * и при старте рейтинги блюд, получивших отзывы после нее, пересчитываются из reviews.
+ * Так оценки, не успевшие попасть в ratings до падения сервиса, не теряются.
+ * Режим рассчитан на один экземпляр сервиса, выполняющий агрегацию.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.rating.update-mode", havingValue = "write-behind")
+public class WriteBehindRatingAggregator implements RatingUpdater {
+
+    private final ConcurrentHashMap<Long, RatingBuckets> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final RatingRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration checkpointGrace;
+
+    public WriteBehindRatingAggregator(RatingRepository repository,
+                                       TransactionTemplate transactionTemplate,
+                                       ApplicationEventPublisher eventPublisher,
+                                       @Value("${app.rating.write-behind.checkpoint-grace:60s}") Duration checkpointGrace) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.checkpointGrace = checkpointGrace;
+    }
+
+    @Override
+    public void updateRating(Long menuId, Integer rate) {
+        afterCommit(() -> add(menuId, rate));
+    }
+
+    @Override
+    public void updateRatings(Collection<RatingIncrement> increments) {
+        afterCommit(() -> increments.forEach(this::add));
+    }
+
+    @PostConstruct
+    public void recover() {
+        var now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            var checkpoint = repository.findAggregatorCheckpoint();
+            if (checkpoint.isPresent()) {
+                int recalculated = repository.recalculateRatingsReviewedSince(checkpoint.get());
+                log.info("Recalculated {} ratings reviewed since checkpoint {}", recalculated, checkpoint.get());
+            }
+            repository.saveAggregatorCheckpoint(now.minus(checkpointGrace));
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.rating.write-behind.flush-interval-ms:1000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            // отзывы, созданные раньше этого момента, к началу сброса уже зафиксированы и учтены в счетчиках
+            var flushedBefore = LocalDateTime.now().minus(checkpointGrace);
+            List<RatingIncrement> increments = drain();
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    repository.applyIncrements(increments);
+                    repository.saveAggregatorCheckpoint(flushedBefore);
+                    if (!increments.isEmpty()) {
+                        eventPublisher.publishEvent(new RatingsChangedEvent(
+                                increments.stream().map(RatingIncrement::menuId).toList()));
+                    }
+                });
+            } catch (RuntimeException ex) {
+                log.error("Failed to flush {} rating increments, they will be retried", increments.size(), ex);
+                increments.forEach(this::add);
+                return;
+            }
+            if (!increments.isEmpty()) {
+                log.debug("Flushed rating increments for {} menus", increments.size());
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Количество блюд, для которых хранятся счетчики оценок.
+     */
+    public int pendingMenus() {
+        return pending.size();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // учитываем оценки только после фиксации транзакции, в которой сохранены отзывы
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // оценка добавляется внутри compute, поэтому не попадет в счетчики, которые drain уже удалил из pending
+    private void add(Long menuId, Integer rate) {
+        pending.compute(menuId, (id, buckets) -> {
+            var result = buckets != null ? buckets : new RatingBuckets();
+            result.increment(rate);
+            return result;
+        });
+    }
+
+    private void add(RatingIncrement increment) {
+        pending.compute(increment.menuId(), (id, buckets) -> {
+            var result = buckets != null ? buckets : new RatingBuckets();
+            result.add(increment);
+            return result;
+        });
+    }
+
+    /**
+     * Забирает накопленные оценки. Счетчики блюда, не получившего оценок с прошлого сброса, удаляются,
+     * поэтому pending хранит только блюда, оцененные недавно.
+     */
+    private List<RatingIncrement> drain() {
+        List<RatingIncrement> increments = new ArrayList<>();
+        for (Long menuId : pending.keySet()) {
+            pending.computeIfPresent(menuId, (id, buckets) -> {
+                var increment = buckets.drain(id);
+                if (increment.isEmpty()) {
+                    return null;
+                }
+                increments.add(increment);
+                return buckets;
+            });
+        }
+        return increments;
+    }
+}
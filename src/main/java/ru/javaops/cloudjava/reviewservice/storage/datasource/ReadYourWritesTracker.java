@@ -0,0 +1,94 @@
+package ru.javaops.cloudjava.reviewservice.storage.datasource;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Помнит пользователей, недавно изменявших данные, чтобы их чтения в течение окна
+ * выполнялись на основном сервере, а не на реплике, которая могла еще не получить их изменения.
+ * <p>
+ * Окно отсчитывается от завершения запроса на запись. Нулевое окно отключает механизм.
+ */
+public class ReadYourWritesTracker {
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private final ConcurrentHashMap<String, Long> writeDeadlines = new ConcurrentHashMap<>();
+    private final long windowNanos;
+
+    public ReadYourWritesTracker(Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    public void recordWrite(String username) {
+        if (windowNanos > 0) {
+            writeDeadlines.put(username, System.nanoTime() + windowNanos);
+        }
+    }
+
+    /**
+     * Направляет чтения текущего потока на основной сервер, если пользователь изменял данные в течение окна.
+     * Возвращает true, если направил: тогда после обработки запроса нужно вызвать {@link #endRequest()}.
+     */
+    public boolean beginRequest(String username) {
+        if (!hasRecentWrite(username)) {
+            return false;
+        }
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+        return true;
+    }
+
+    public void endRequest() {
+        PRIMARY_REQUIRED.remove();
+    }
+
+    public boolean isPrimaryRequired() {
+        return PRIMARY_REQUIRED.get() != null;
+    }
+
+    /**
+     * Переносит выбор основного сервера текущего потока в задачу, которую выполнит другой поток.
+     */
+    public Runnable propagate(Runnable task) {
+        if (!isPrimaryRequired()) {
+            return task;
+        }
+        return () -> {
+            PRIMARY_REQUIRED.set(Boolean.TRUE);
+            try {
+                task.run();
+            } finally {
+                PRIMARY_REQUIRED.remove();
+            }
+        };
+    }
+
+    public int size() {
+        return writeDeadlines.size();
+    }
+
+    /**
+     * Удаляет пользователей, окно которых истекло.
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.replicas.health-check-interval-ms:5000}")
+    public void purgeExpired() {
+        long now = System.nanoTime();
+        writeDeadlines.values().removeIf(deadline -> now - deadline >= 0);
+    }
+
+    private boolean hasRecentWrite(String username) {
+        if (username == null) {
+            return false;
+        }
+        Long deadline = writeDeadlines.get(username);
+        if (deadline == null) {
+            return false;
+        }
+        if (System.nanoTime() - deadline >= 0) {
+            writeDeadlines.remove(username, deadline);
+            return false;
+        }
+        return true;
+    }
+}
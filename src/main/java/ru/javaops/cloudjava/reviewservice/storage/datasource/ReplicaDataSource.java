@@ -0,0 +1,162 @@
+package ru.javaops.cloudjava.reviewservice.storage.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Источник соединений для readOnly транзакций: пулы реплик, между которыми соединения распределяются по кругу.
+ * <p>
+ * Реплика исключается из распределения, если проверка здоровья не смогла к ней подключиться или ее отставание
+ * от основного сервера больше maxLag, и возвращается после успешной проверки. Если здоровых реплик нет,
+ * а также для пользователей в окне read-your-writes, соединение выдает основной сервер.
+ */
+@Slf4j
+public class ReplicaDataSource extends AbstractDataSource implements MeterBinder, AutoCloseable {
+    // пока реплика применяет WAL, отставание - время с последней примененной транзакции основного сервера
+    static final String REPLICATION_LAG_SQL = """
+            SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                        ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END AS lag_seconds
+            """;
+
+    private final DataSource primary;
+    private final List<HikariDataSource> replicas;
+    private final AtomicBoolean[] healthy;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final Duration maxLag;
+
+    public ReplicaDataSource(DataSource primary,
+                             List<HikariDataSource> replicas,
+                             ReadYourWritesTracker readYourWritesTracker,
+                             Duration maxLag) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.healthy = new AtomicBoolean[replicas.size()];
+        for (int i = 0; i < healthy.length; i++) {
+            healthy[i] = new AtomicBoolean();
+        }
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.maxLag = maxLag;
+        checkHealth();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connect(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connect(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    /**
+     * Проверяет доступность и отставание каждой реплики.
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.replicas.health-check-interval-ms:5000}")
+    public void checkHealth() {
+        for (int i = 0; i < replicas.size(); i++) {
+            var replica = replicas.get(i);
+            boolean wasHealthy = isHealthy(i);
+            boolean nowHealthy = probe(replica);
+            setHealthy(i, nowHealthy);
+            if (wasHealthy != nowHealthy) {
+                log.info("Replica {} is {}", replica.getPoolName(), nowHealthy ? "healthy" : "unhealthy");
+            }
+        }
+    }
+
+    public int healthyCount() {
+        int count = 0;
+        for (int i = 0; i < replicas.size(); i++) {
+            if (isHealthy(i)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("datasource.replicas.healthy", this, ReplicaDataSource::healthyCount)
+                .description("Number of replicas receiving read-only transactions")
+                .register(registry);
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+    }
+
+    private Connection connect(ConnectionSource source) throws SQLException {
+        if (readYourWritesTracker.isPrimaryRequired()) {
+            return source.get(primary);
+        }
+        int size = replicas.size();
+        if (size == 0) {
+            return source.get(primary);
+        }
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            int index = (start + i) % size;
+            if (!isHealthy(index)) {
+                continue;
+            }
+            try {
+                return source.get(replicas.get(index));
+            } catch (SQLFeatureNotSupportedException ex) {
+                // пул не поддерживает запрос - это не признак недоступности реплики
+                throw ex;
+            } catch (SQLException ex) {
+                log.warn("Failed to get connection from replica {}, excluding it until next health check",
+                        replicas.get(index).getPoolName(), ex);
+                setHealthy(index, false);
+            }
+        }
+        return source.get(primary);
+    }
+
+    private boolean probe(HikariDataSource replica) {
+        try (var connection = replica.getConnection();
+             var statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(REPLICATION_LAG_SQL)) {
+            double lagSeconds = rs.next() ? rs.getDouble("lag_seconds") : 0;
+            if (lagSeconds * 1000 > maxLag.toMillis()) {
+                log.warn("Replica {} lags behind primary by {} s", replica.getPoolName(), lagSeconds);
+                return false;
+            }
+            return true;
+        } catch (SQLException ex) {
+            log.debug("Health check of replica {} failed", replica.getPoolName(), ex);
+            return false;
+        }
+    }
+
+    private boolean isHealthy(int index) {
+        return healthy[index].get();
+    }
+
+    private void setHealthy(int index, boolean value) {
+        healthy[index].set(value);
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection get(DataSource dataSource) throws SQLException;
+    }
+}
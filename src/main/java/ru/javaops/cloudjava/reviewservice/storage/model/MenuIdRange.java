@@ -0,0 +1,7 @@
+package ru.javaops.cloudjava.reviewservice.storage.model;
+
+/**
+ * Диапазон идентификаторов блюд [from, to).
+ */
+public record MenuIdRange(long from, long to) {
+}
@@ -0,0 +1,7 @@
+package ru.javaops.cloudjava.reviewservice.storage.model;
+
+/**
+ * Рейтинг блюда и версия его последнего изменения.
+ */
+public record RatingChange(MenuRatingInfo rating, long version) {
+}
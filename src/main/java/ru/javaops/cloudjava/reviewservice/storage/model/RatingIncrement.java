@@ -0,0 +1,30 @@
+package ru.javaops.cloudjava.reviewservice.storage.model;
+
+public record RatingIncrement(Long menuId, int one, int two, int three, int four, int five) {
+
+    public static RatingIncrement of(Long menuId, int rate) {
+        return new RatingIncrement(menuId,
+                rate == 1 ? 1 : 0,
+                rate == 2 ? 1 : 0,
+                rate == 3 ? 1 : 0,
+                rate == 4 ? 1 : 0,
+                rate == 5 ? 1 : 0);
+    }
+
+    public RatingIncrement plus(RatingIncrement other) {
+        return new RatingIncrement(menuId,
+                one + other.one,
+                two + other.two,
+                three + other.three,
+                four + other.four,
+                five + other.five);
+    }
+
+    public int total() {
+        return one + two + three + four + five;
+    }
+
+    public boolean isEmpty() {
+        return total() == 0;
+    }
+}
@@ -0,0 +1,12 @@
+package ru.javaops.cloudjava.reviewservice.storage.model;
+
+import java.time.Duration;
+
+/**
+ * Состояние очереди rating_outbox.
+ *
+ * @param pending   количество еще не примененных записей
+ * @param oldestAge возраст самой старой записи, ноль для пустой очереди
+ */
+public record RatingOutboxBacklog(long pending, Duration oldestAge) {
+}
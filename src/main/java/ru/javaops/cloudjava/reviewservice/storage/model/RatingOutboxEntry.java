@@ -0,0 +1,12 @@
+package ru.javaops.cloudjava.reviewservice.storage.model;
+
+import java.time.Duration;
+
+/**
+ * Оценки, извлеченные из rating_outbox.
+ *
+ * @param increment оценки блюда
+ * @param lag       время от записи в outbox до извлечения
+ */
+public record RatingOutboxEntry(RatingIncrement increment, Duration lag) {
+}
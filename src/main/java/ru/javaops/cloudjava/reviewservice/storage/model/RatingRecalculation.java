@@ -0,0 +1,13 @@
+package ru.javaops.cloudjava.reviewservice.storage.model;
+
+import java.util.List;
+
+/**
+ * Результат пересчета рейтингов диапазона блюд по таблице reviews.
+ *
+ * @param menus            количество рейтингов в диапазоне
+ * @param reviews          количество учтенных отзывов
+ * @param correctedMenuIds блюда, рейтинг которых расходился с отзывами и был исправлен
+ */
+public record RatingRecalculation(long menus, long reviews, List<Long> correctedMenuIds) {
+}
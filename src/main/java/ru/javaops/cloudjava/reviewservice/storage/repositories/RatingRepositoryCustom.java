@@ -0,0 +1,76 @@
+package ru.javaops.cloudjava.reviewservice.storage.repositories;
+
+import ru.javaops.cloudjava.reviewservice.storage.model.MenuIdRange;
+import ru.javaops.cloudjava.reviewservice.storage.model.RatingChange;
+import ru.javaops.cloudjava.reviewservice.storage.model.RatingIncrement;
+import ru.javaops.cloudjava.reviewservice.storage.model.RatingOutboxBacklog;
+import ru.javaops.cloudjava.reviewservice.storage.model.RatingOutboxEntry;
+import ru.javaops.cloudjava.reviewservice.storage.model.RatingRecalculation;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface RatingRepositoryCustom {
+
+    void incrementRating(Long menuId, Integer rating);
+
+    /**
+     * Учитывает одну оценку блюда одним запросом: создает рейтинг, если его еще нет,
+     * иначе увеличивает только счетчик этой оценки и пересчитывает рейтинг.
+     */
+    void upsertRating(Long menuId, Integer rating);
+
+    void applyIncrements(Collection<RatingIncrement> increments);
+
+    int recalculateRatingsReviewedSince(LocalDateTime since);
+
+    Optional<LocalDateTime> findAggregatorCheckpoint();
+
+    void saveAggregatorCheckpoint(LocalDateTime flushedBefore);
+
+    /**
+     * Диапазон, покрывающий идентификаторы всех блюд, у которых есть отзывы или рейтинг.
+     */
+    Optional<MenuIdRange> findMenuIdRange();
+
+    /**
+     * Создает нулевые рейтинги блюд диапазона, у которых есть отзывы, но нет строки в ratings.
+     */
+    int insertMissingRatings(MenuIdRange range);
+
+    /**
+     * Блокирует строки рейтингов диапазона до конца транзакции.
+     */
+    void lockRatings(MenuIdRange range);
+
+    /**
+     * Пересчитывает рейтинги диапазона по таблице reviews и записывает только разошедшиеся с отзывами.
+     */
+    RatingRecalculation recalculateRatings(MenuIdRange range);
+
+    /**
+     * Версия, меньше которой не появится новых изменений рейтингов: все транзакции с меньшими версиями завершены.
+     */
+    long findChangeVersionWatermark();
+
+    /**
+     * Рейтинги, измененные после позиции (afterVersion, afterMenuId) и до версии beforeVersion,
+     * в порядке (версия изменения, menu_id).
+     */
+    List<RatingChange> findRatingChanges(long afterVersion, long afterMenuId, long beforeVersion, int limit);
+
+    /**
+     * Записывает оценки в rating_outbox в текущей транзакции.
+     */
+    void appendToOutbox(Collection<RatingIncrement> increments);
+
+    /**
+     * Удаляет и возвращает до limit самых старых записей rating_outbox. Записи, заблокированные
+     * другими транзакциями извлечения, пропускаются, поэтому извлекать можно из нескольких потоков и экземпляров.
+     */
+    List<RatingOutboxEntry> drainOutbox(int limit);
+
+    RatingOutboxBacklog findOutboxBacklog();
+}
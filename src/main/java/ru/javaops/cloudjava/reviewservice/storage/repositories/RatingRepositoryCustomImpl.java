@@ -0,0 +1,396 @@
+package ru.javaops.cloudjava.reviewservice.storage.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import ru.javaops.cloudjava.reviewservice.storage.model.MenuIdRange;
+import ru.javaops.cloudjava.reviewservice.storage.model.MenuRatingInfo;
+import ru.javaops.cloudjava.reviewservice.storage.model.RatingChange;
+import ru.javaops.cloudjava.reviewservice.storage.model.RatingIncrement;
+import ru.javaops.cloudjava.reviewservice.storage.model.RatingOutboxBacklog;
+import ru.javaops.cloudjava.reviewservice.storage.model.RatingOutboxEntry;
+import ru.javaops.cloudjava.reviewservice.storage.model.RatingRecalculation;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import static ru.javaops.cloudjava.reviewservice.util.RatingCalculator.avgStarsSql;
+import static ru.javaops.cloudjava.reviewservice.util.RatingCalculator.wilsonScoreSql;
+
+@RequiredArgsConstructor
+public class RatingRepositoryCustomImpl implements RatingRepositoryCustom {
+
+    /**
+     * Версия изменения строки рейтинга, которую присваивает каждый запрос, изменяющий рейтинг.
+     */
+    static final String CHANGE_VERSION_SQL = "pg_current_xact_id()::text::bigint";
+
+    static final String INCREMENT_RATING_SQL = """
+            UPDATE ratings SET
+            rate_one = rate_one + :one,
+            rate_two = rate_two + :two,
+            rate_three = rate_three + :three,
+            rate_four = rate_four + :four,
+            rate_five = rate_five + :five,
+            wilson_score = %s,
+            avg_stars = %s,
+            change_version = %s
+            WHERE menu_id = :menuId
+            """.formatted(
+            wilsonScoreSql("rate_one + :one", "rate_two + :two", "rate_three + :three", "rate_four + :four", "rate_five + :five"),
+            avgStarsSql("rate_one + :one", "rate_two + :two", "rate_three + :three", "rate_four + :four", "rate_five + :five"),
+            CHANGE_VERSION_SQL);
+
+    private static final List<String> RATE_COLUMNS = List.of("rate_one", "rate_two", "rate_three", "rate_four", "rate_five");
+
+    /**
+     * Upsert одной оценки, индекс в списке - оценка минус 1. Изменяется только столбец этой оценки.
+     */
+    static final List<String> UPSERT_RATING_SQL = RATE_COLUMNS.stream()
+            .map(column -> {
+                var inserted = RATE_COLUMNS.stream().map(c -> c.equals(column) ? "1" : "0").toArray(String[]::new);
+                var updated = RATE_COLUMNS.stream().map(c -> c.equals(column) ? "r.%s + 1".formatted(c) : "r." + c)
+                        .toArray(String[]::new);
+                return """
+                        INSERT INTO ratings AS r (menu_id, %1$s, wilson_score, avg_stars)
+                        VALUES (?, 1, %2$s, %3$s)
+                        ON CONFLICT (menu_id) DO UPDATE SET
+                        %1$s = r.%1$s + 1,
+                        wilson_score = %4$s,
+                        avg_stars = %5$s,
+                        change_version = %6$s
+                        """.formatted(column,
+                        wilsonScoreSql(inserted[0], inserted[1], inserted[2], inserted[3], inserted[4]),
+                        avgStarsSql(inserted[0], inserted[1], inserted[2], inserted[3], inserted[4]),
+                        wilsonScoreSql(updated[0], updated[1], updated[2], updated[3], updated[4]),
+                        avgStarsSql(updated[0], updated[1], updated[2], updated[3], updated[4]),
+                        CHANGE_VERSION_SQL);
+            })
+            .toList();
+
+    static final String APPLY_INCREMENTS_SQL = """
+            INSERT INTO ratings AS r (menu_id, rate_one, rate_two, rate_three, rate_four, rate_five, wilson_score, avg_stars)
+            SELECT u.menu_id, u.one, u.two, u.three, u.four, u.five, %s, %s
+            FROM unnest(?::bigint[], ?::integer[], ?::integer[], ?::integer[], ?::integer[], ?::integer[])
+                AS u(menu_id, one, two, three, four, five)
+            ON CONFLICT (menu_id) DO UPDATE SET
+            rate_one = r.rate_one + EXCLUDED.rate_one,
+            rate_two = r.rate_two + EXCLUDED.rate_two,
+            rate_three = r.rate_three + EXCLUDED.rate_three,
+            rate_four = r.rate_four + EXCLUDED.rate_four,
+            rate_five = r.rate_five + EXCLUDED.rate_five,
+            wilson_score = %s,
+            avg_stars = %s,
+            change_version = %s
+            """.formatted(
+            wilsonScoreSql("u.one", "u.two", "u.three", "u.four", "u.five"),
+            avgStarsSql("u.one", "u.two", "u.three", "u.four", "u.five"),
+            wilsonScoreSql("r.rate_one + EXCLUDED.rate_one", "r.rate_two + EXCLUDED.rate_two",
+                    "r.rate_three + EXCLUDED.rate_three", "r.rate_four + EXCLUDED.rate_four",
+                    "r.rate_five + EXCLUDED.rate_five"),
+            avgStarsSql("r.rate_one + EXCLUDED.rate_one", "r.rate_two + EXCLUDED.rate_two",
+                    "r.rate_three + EXCLUDED.rate_three", "r.rate_four + EXCLUDED.rate_four",
+                    "r.rate_five + EXCLUDED.rate_five"),
+            CHANGE_VERSION_SQL);
+
+    static final String RECALCULATE_REVIEWED_SINCE_SQL = """
+            INSERT INTO ratings AS r (menu_id, rate_one, rate_two, rate_three, rate_four, rate_five, wilson_score, avg_stars)
+            SELECT c.menu_id, c.one, c.two, c.three, c.four, c.five, %s, %s
+            FROM (
+                SELECT menu_id,
+                       count(*) FILTER (WHERE rate = 1) AS one,
+                       count(*) FILTER (WHERE rate = 2) AS two,
+                       count(*) FILTER (WHERE rate = 3) AS three,
+                       count(*) FILTER (WHERE rate = 4) AS four,
+                       count(*) FILTER (WHERE rate = 5) AS five
+                FROM reviews
+                WHERE menu_id IN (SELECT DISTINCT menu_id FROM reviews WHERE created_at >= ?)
+                GROUP BY menu_id
+            ) c
+            ORDER BY c.menu_id
+            ON CONFLICT (menu_id) DO UPDATE SET
+            rate_one = EXCLUDED.rate_one,
+            rate_two = EXCLUDED.rate_two,
+            rate_three = EXCLUDED.rate_three,
+            rate_four = EXCLUDED.rate_four,
+            rate_five = EXCLUDED.rate_five,
+            wilson_score = EXCLUDED.wilson_score,
+            avg_stars = EXCLUDED.avg_stars,
+            change_version = %s
+            """.formatted(
+            wilsonScoreSql("c.one", "c.two", "c.three", "c.four", "c.five"),
+            avgStarsSql("c.one", "c.two", "c.three", "c.four", "c.five"),
+            CHANGE_VERSION_SQL);
+
+    static final String MENU_ID_RANGE_SQL = """
+            SELECT LEAST((SELECT min(menu_id) FROM ratings), (SELECT min(menu_id) FROM reviews)) AS min_menu_id,
+                   GREATEST((SELECT max(menu_id) FROM ratings), (SELECT max(menu_id) FROM reviews)) AS max_menu_id
+            """;
+
+    static final String INSERT_MISSING_RATINGS_SQL = """
+            INSERT INTO ratings(menu_id)
+            SELECT DISTINCT menu_id FROM reviews
+            WHERE menu_id >= ? AND menu_id < ?
+            ORDER BY menu_id
+            ON CONFLICT (menu_id) DO NOTHING
+            """;
+
+    static final String LOCK_RATINGS_SQL = """
+            SELECT menu_id FROM ratings
+            WHERE menu_id >= ? AND menu_id < ?
+            ORDER BY menu_id
+            FOR UPDATE
+            """;
+
+    static final String RECALCULATE_RATINGS_SQL = """
+            WITH counts AS (
+                SELECT m.menu_id,
+                       count(v.rate) FILTER (WHERE v.rate = 1) AS one,
+                       count(v.rate) FILTER (WHERE v.rate = 2) AS two,
+                       count(v.rate) FILTER (WHERE v.rate = 3) AS three,
+                       count(v.rate) FILTER (WHERE v.rate = 4) AS four,
+                       count(v.rate) FILTER (WHERE v.rate = 5) AS five
+                FROM ratings m
+                LEFT JOIN reviews v ON v.menu_id = m.menu_id
+                WHERE m.menu_id >= ? AND m.menu_id < ?
+                GROUP BY m.menu_id
+            ), c AS (
+                SELECT counts.*, %s AS wilson_score, %s AS avg_stars
+                FROM counts
+            ), corrected AS (
+                UPDATE ratings AS r SET
+                rate_one = c.one,
+                rate_two = c.two,
+                rate_three = c.three,
+                rate_four = c.four,
+                rate_five = c.five,
+                wilson_score = c.wilson_score,
+                avg_stars = c.avg_stars,
+                change_version = %s
+                FROM c
+                WHERE r.menu_id = c.menu_id
+                  AND (r.rate_one, r.rate_two, r.rate_three, r.rate_four, r.rate_five, r.wilson_score, r.avg_stars)
+                      IS DISTINCT FROM (c.one, c.two, c.three, c.four, c.five, c.wilson_score, c.avg_stars)
+                RETURNING r.menu_id
+            )
+            SELECT (SELECT count(*) FROM c) AS menus,
+                   (SELECT coalesce(sum(one + two + three + four + five), 0) FROM c) AS reviews,
+                   ARRAY(SELECT menu_id FROM corrected ORDER BY menu_id) AS corrected_menu_ids
+            """.formatted(
+            wilsonScoreSql("counts.one", "counts.two", "counts.three", "counts.four", "counts.five"),
+            avgStarsSql("counts.one", "counts.two", "counts.three", "counts.four", "counts.five"),
+            CHANGE_VERSION_SQL);
+
+    // транзакции с идентификатором меньше xmin текущего снимка завершены, поэтому строк с такими версиями больше не появится
+    static final String CHANGE_VERSION_WATERMARK_SQL = """
+            SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint
+            """;
+
+    static final String RATING_CHANGES_SQL = """
+            SELECT menu_id, wilson_score, avg_stars, change_version
+            FROM ratings
+            WHERE (change_version, menu_id) > (?, ?) AND change_version < ?
+            ORDER BY change_version, menu_id
+            LIMIT ?
+            """;
+
+    static final String APPEND_TO_OUTBOX_SQL = """
+            INSERT INTO rating_outbox(menu_id, rate_one, rate_two, rate_three, rate_four, rate_five)
+            SELECT * FROM unnest(?::bigint[], ?::integer[], ?::integer[], ?::integer[], ?::integer[], ?::integer[])
+            """;
+
+    static final String DRAIN_OUTBOX_SQL = """
+            DELETE FROM rating_outbox
+            WHERE id IN (
+                SELECT id FROM rating_outbox
+                ORDER BY id
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            )
+            RETURNING menu_id, rate_one, rate_two, rate_three, rate_four, rate_five,
+                      EXTRACT(EPOCH FROM clock_timestamp() - created_at) AS lag_seconds
+            """;
+
+    static final String OUTBOX_BACKLOG_SQL = """
+            SELECT count(*) AS pending,
+                   COALESCE(EXTRACT(EPOCH FROM clock_timestamp() - min(created_at)), 0) AS oldest_age_seconds
+            FROM rating_outbox
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Transactional
+    @Override
+    public void incrementRating(Long menuId, Integer rating) {
+        var increment = RatingIncrement.of(menuId, rating);
+        namedJdbcTemplate.update(INCREMENT_RATING_SQL, new MapSqlParameterSource()
+                .addValue("menuId", menuId)
+                .addValue("one", increment.one())
+                .addValue("two", increment.two())
+                .addValue("three", increment.three())
+                .addValue("four", increment.four())
+                .addValue("five", increment.five()));
+    }
+
+    @Transactional
+    @Override
+    public void upsertRating(Long menuId, Integer rating) {
+        if (rating < 1 || rating > RATE_COLUMNS.size()) {
+            throw new IllegalArgumentException("Rating must be between 1 and 5, got " + rating);
+        }
+        jdbcTemplate.update(UPSERT_RATING_SQL.get(rating - 1), menuId);
+    }
+
+    @Override
+    public void applyIncrements(Collection<RatingIncrement> increments) {
+        if (increments.isEmpty()) {
+            return;
+        }
+        // сортируем по menu_id, чтобы конкурирующие upsert-ы блокировали строки в одинаковом порядке
+        List<RatingIncrement> sorted = increments.stream()
+                .sorted(Comparator.comparing(RatingIncrement::menuId))
+                .toList();
+        updateWithIncrementArrays(APPLY_INCREMENTS_SQL, sorted);
+    }
+
+    @Override
+    public long findChangeVersionWatermark() {
+        return jdbcTemplate.queryForObject(CHANGE_VERSION_WATERMARK_SQL, Long.class);
+    }
+
+    @Override
+    public List<RatingChange> findRatingChanges(long afterVersion, long afterMenuId, long beforeVersion, int limit) {
+        return jdbcTemplate.query(RATING_CHANGES_SQL, (rs, rowNum) -> new RatingChange(
+                        new MenuRatingInfo(rs.getLong("menu_id"), rs.getFloat("wilson_score"), rs.getFloat("avg_stars")),
+                        rs.getLong("change_version")),
+                afterVersion, afterMenuId, beforeVersion, limit);
+    }
+
+    @Override
+    public void appendToOutbox(Collection<RatingIncrement> increments) {
+        if (increments.isEmpty()) {
+            return;
+        }
+        updateWithIncrementArrays(APPEND_TO_OUTBOX_SQL, List.copyOf(increments));
+    }
+
+    @Override
+    public List<RatingOutboxEntry> drainOutbox(int limit) {
+        return jdbcTemplate.query(DRAIN_OUTBOX_SQL, (rs, rowNum) -> new RatingOutboxEntry(
+                        new RatingIncrement(rs.getLong("menu_id"),
+                                rs.getInt("rate_one"),
+                                rs.getInt("rate_two"),
+                                rs.getInt("rate_three"),
+                                rs.getInt("rate_four"),
+                                rs.getInt("rate_five")),
+                        seconds(rs.getDouble("lag_seconds"))),
+                limit);
+    }
+
+    @Override
+    public RatingOutboxBacklog findOutboxBacklog() {
+        return jdbcTemplate.queryForObject(OUTBOX_BACKLOG_SQL, (rs, rowNum) -> new RatingOutboxBacklog(
+                rs.getLong("pending"),
+                seconds(rs.getDouble("oldest_age_seconds"))));
+    }
+
+    @Override
+    public int recalculateRatingsReviewedSince(LocalDateTime since) {
+        return jdbcTemplate.update(RECALCULATE_REVIEWED_SINCE_SQL, Timestamp.valueOf(since));
+    }
+
+    @Override
+    public Optional<LocalDateTime> findAggregatorCheckpoint() {
+        return jdbcTemplate.queryForList(
+                        "SELECT flushed_before FROM rating_aggregator_checkpoint WHERE id = 1",
+                        Timestamp.class)
+                .stream()
+                .findFirst()
+                .map(Timestamp::toLocalDateTime);
+    }
+
+    @Override
+    public void saveAggregatorCheckpoint(LocalDateTime flushedBefore) {
+        jdbcTemplate.update("""
+                        INSERT INTO rating_aggregator_checkpoint(id, flushed_before) VALUES (1, ?)
+                        ON CONFLICT (id) DO UPDATE SET
+                        flushed_before = GREATEST(rating_aggregator_checkpoint.flushed_before, EXCLUDED.flushed_before)
+                        """,
+                Timestamp.valueOf(flushedBefore));
+    }
+
+    @Override
+    public Optional<MenuIdRange> findMenuIdRange() {
+        return jdbcTemplate.query(MENU_ID_RANGE_SQL, (rs, rowNum) -> {
+                    long min = rs.getLong("min_menu_id");
+                    return rs.wasNull() ? null : new MenuIdRange(min, rs.getLong("max_menu_id") + 1);
+                })
+                .stream()
+                .filter(Objects::nonNull)
+                .findFirst();
+    }
+
+    @Override
+    public int insertMissingRatings(MenuIdRange range) {
+        return jdbcTemplate.update(INSERT_MISSING_RATINGS_SQL, range.from(), range.to());
+    }
+
+    @Override
+    public void lockRatings(MenuIdRange range) {
+        jdbcTemplate.queryForList(LOCK_RATINGS_SQL, Long.class, range.from(), range.to());
+    }
+
+    @Override
+    public RatingRecalculation recalculateRatings(MenuIdRange range) {
+        return jdbcTemplate.queryForObject(RECALCULATE_RATINGS_SQL, (rs, rowNum) -> new RatingRecalculation(
+                        rs.getLong("menus"),
+                        rs.getLong("reviews"),
+                        Arrays.asList((Long[]) rs.getArray("corrected_menu_ids").getArray())),
+                range.from(), range.to());
+    }
+
+    /**
+     * Выполняет запрос, параметры которого - массивы menu_id и количеств оценок от 1 до 5.
+     */
+    private void updateWithIncrementArrays(String sql, List<RatingIncrement> increments) {
+        int size = increments.size();
+        Long[] menuIds = new Long[size];
+        Integer[] ones = new Integer[size];
+        Integer[] twos = new Integer[size];
+        Integer[] threes = new Integer[size];
+        Integer[] fours = new Integer[size];
+        Integer[] fives = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            var increment = increments.get(i);
+            menuIds[i] = increment.menuId();
+            ones[i] = increment.one();
+            twos[i] = increment.two();
+            threes[i] = increment.three();
+            fours[i] = increment.four();
+            fives[i] = increment.five();
+        }
+        jdbcTemplate.update(sql, ps -> {
+            var connection = ps.getConnection();
+            ps.setArray(1, connection.createArrayOf("bigint", menuIds));
+            ps.setArray(2, connection.createArrayOf("integer", ones));
+            ps.setArray(3, connection.createArrayOf("integer", twos));
+            ps.setArray(4, connection.createArrayOf("integer", threes));
+            ps.setArray(5, connection.createArrayOf("integer", fours));
+            ps.setArray(6, connection.createArrayOf("integer", fives));
+        });
+    }
+
+    private static Duration seconds(double seconds) {
+        return Duration.ofNanos((long) (seconds * 1_000_000_000L));
+    }
+}
@@ -1,14 +1,92 @@
 package ru.javaops.cloudjava.reviewservice.storage.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import ru.javaops.cloudjava.reviewservice.dto.ReviewResponse;
 import ru.javaops.cloudjava.reviewservice.storage.model.Review;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface ReviewRepository extends JpaRepository<Review, Long> {
+public interface ReviewRepository extends JpaRepository<Review, Long>, ReviewRepositoryCustom {
+    /**
+     * Количество строк, которое драйвер PostgreSQL получает с сервера за одно обращение к курсору
+     * при выгрузке отзывов. Курсор используется только внутри транзакции.
+     */
+    String EXPORT_FETCH_SIZE = "1000";
 
     List<Review> findAllByCreatedBy(String createdBy, Pageable pageable);
 
     List<Review> findAllByMenuId(Long menuId, Pageable pageable);
-}
\ No newline at end of file
+
+    @Query(value = """
+                SELECT * FROM reviews
+                WHERE created_by = :createdBy AND (created_at, id) > (:createdAt, :id)
+                ORDER BY created_at, id
+                LIMIT :size
+            """, nativeQuery = true)
+    List<Review> findAllByCreatedByAfter(@Param("createdBy") String createdBy,
+                                         @Param("createdAt") LocalDateTime createdAt,
+                                         @Param("id") Long id,
+                                         @Param("size") int size);
+
+    @Query(value = """
+                SELECT * FROM reviews
+                WHERE created_by = :createdBy AND (created_at, id) < (:createdAt, :id)
+                ORDER BY created_at DESC, id DESC
+                LIMIT :size
+            """, nativeQuery = true)
+    List<Review> findAllByCreatedByBefore(@Param("createdBy") String createdBy,
+                                          @Param("createdAt") LocalDateTime createdAt,
+                                          @Param("id") Long id,
+                                          @Param("size") int size);
+
+    @Query(value = """
+                SELECT * FROM reviews
+                WHERE menu_id = :menuId AND (created_at, id) > (:createdAt, :id)
+                ORDER BY created_at, id
+                LIMIT :size
+            """, nativeQuery = true)
+    List<Review> findAllByMenuIdAfter(@Param("menuId") Long menuId,
+                                      @Param("createdAt") LocalDateTime createdAt,
+                                      @Param("id") Long id,
+                                      @Param("size") int size);
+
+    @Query(value = """
+                SELECT * FROM reviews
+                WHERE menu_id = :menuId AND (created_at, id) < (:createdAt, :id)
+                ORDER BY created_at DESC, id DESC
+                LIMIT :size
+            """, nativeQuery = true)
+    List<Review> findAllByMenuIdBefore(@Param("menuId") Long menuId,
+                                       @Param("createdAt") LocalDateTime createdAt,
+                                       @Param("id") Long id,
+                                       @Param("size") int size);
+
+    // выгружаем сразу в DTO: сущности не попадают в контекст персистентности, и память не растет с числом строк
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query("""
+                SELECT new ru.javaops.cloudjava.reviewservice.dto.ReviewResponse(
+                    r.id, r.menuId, r.createdBy, r.comment, r.rate, r.createdAt)
+                FROM Review r
+                WHERE r.menuId = :menuId
+                ORDER BY r.createdAt, r.id
+            """)
+    Stream<ReviewResponse> streamAllByMenuId(@Param("menuId") Long menuId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query("""
+                SELECT new ru.javaops.cloudjava.reviewservice.dto.ReviewResponse(
+                    r.id, r.menuId, r.createdBy, r.comment, r.rate, r.createdAt)
+                FROM Review r
+                WHERE r.createdBy = :createdBy
+                ORDER BY r.createdAt, r.id
+            """)
+    Stream<ReviewResponse> streamAllByCreatedBy(@Param("createdBy") String createdBy);
+}
@@ -0,0 +1,22 @@
+package ru.javaops.cloudjava.reviewservice.storage.repositories;
+
+import ru.javaops.cloudjava.reviewservice.storage.model.Review;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface ReviewRepositoryCustom {
+
+    /**
+     * Вставляет отзыв, если пользователь еще не оставлял отзыв к этому блюду.
+     * Дубликат не вызывает ошибку и не откатывает транзакцию: возвращается пустой Optional.
+     */
+    Optional<Review> insertSkippingConflict(Review review, LocalDateTime createdAt);
+
+    /**
+     * Вставляет отзывы одним запросом, пропуская те, что нарушают уникальность (menu_id, created_by).
+     * Возвращает только вставленные отзывы.
+     */
+    List<Review> insertAllSkippingConflicts(List<Review> reviews, LocalDateTime createdAt);
+}
@@ -0,0 +1,82 @@
+package ru.javaops.cloudjava.reviewservice.storage.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import ru.javaops.cloudjava.reviewservice.storage.model.Review;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class ReviewRepositoryCustomImpl implements ReviewRepositoryCustom {
+
+    static final String INSERT_SKIPPING_CONFLICT_SQL = """
+            INSERT INTO reviews(menu_id, created_by, comment, rate, created_at)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (menu_id, created_by) DO NOTHING
+            RETURNING id, menu_id, created_by, comment, rate, created_at
+            """;
+
+    static final String INSERT_SKIPPING_CONFLICTS_SQL = """
+            INSERT INTO reviews(menu_id, created_by, comment, rate, created_at)
+            SELECT u.menu_id, u.created_by, u.comment, u.rate, ?
+            FROM unnest(?::bigint[], ?::text[], ?::text[], ?::integer[]) AS u(menu_id, created_by, comment, rate)
+            ON CONFLICT (menu_id, created_by) DO NOTHING
+            RETURNING id, menu_id, created_by, comment, rate, created_at
+            """;
+
+    private static final RowMapper<Review> REVIEW_ROW_MAPPER = (rs, rowNum) -> Review.builder()
+            .id(rs.getLong("id"))
+            .menuId(rs.getLong("menu_id"))
+            .createdBy(rs.getString("created_by"))
+            .comment(rs.getString("comment"))
+            .rate(rs.getInt("rate"))
+            .createdAt(rs.getTimestamp("created_at").toLocalDateTime())
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Optional<Review> insertSkippingConflict(Review review, LocalDateTime createdAt) {
+        return jdbcTemplate.query(INSERT_SKIPPING_CONFLICT_SQL, REVIEW_ROW_MAPPER,
+                        review.getMenuId(), review.getCreatedBy(), review.getComment(), review.getRate(),
+                        Timestamp.valueOf(createdAt))
+                .stream()
+                .findFirst();
+    }
+
+    @Override
+    public List<Review> insertAllSkippingConflicts(List<Review> reviews, LocalDateTime createdAt) {
+        if (reviews.isEmpty()) {
+            return List.of();
+        }
+        // вставляем в порядке уникального ключа, чтобы конкурирующие пакеты блокировали записи индекса в одном порядке
+        List<Review> sorted = reviews.stream()
+                .sorted(Comparator.comparing(Review::getMenuId).thenComparing(Review::getCreatedBy))
+                .toList();
+        int size = sorted.size();
+        Long[] menuIds = new Long[size];
+        String[] createdBy = new String[size];
+        String[] comments = new String[size];
+        Integer[] rates = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            var review = sorted.get(i);
+            menuIds[i] = review.getMenuId();
+            createdBy[i] = review.getCreatedBy();
+            comments[i] = review.getComment();
+            rates[i] = review.getRate();
+        }
+        return jdbcTemplate.query(INSERT_SKIPPING_CONFLICTS_SQL, ps -> {
+            var connection = ps.getConnection();
+            ps.setTimestamp(1, Timestamp.valueOf(createdAt));
+            ps.setArray(2, connection.createArrayOf("bigint", menuIds));
+            ps.setArray(3, connection.createArrayOf("text", createdBy));
+            ps.setArray(4, connection.createArrayOf("text", comments));
+            ps.setArray(5, connection.createArrayOf("integer", rates));
+        }, REVIEW_ROW_MAPPER);
+    }
+}
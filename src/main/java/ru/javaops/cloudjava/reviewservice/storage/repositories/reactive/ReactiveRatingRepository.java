@@ -0,0 +1,46 @@
+package ru.javaops.cloudjava.reviewservice.storage.repositories.reactive;
+
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.javaops.cloudjava.reviewservice.storage.model.MenuRatingInfo;
+
+import java.util.Collection;
+
+/**
+ * Чтение рейтингов блюд через R2DBC. Запросы повторяют запросы {@link ru.javaops.cloudjava.reviewservice.storage.repositories.RatingRepository}.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveRatingRepository {
+    private static final String SELECT_RATING_INFOS = "SELECT menu_id, wilson_score, avg_stars FROM ratings ";
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<MenuRatingInfo> findRatingInfoByMenuId(Long menuId) {
+        return databaseClient.sql(SELECT_RATING_INFOS + "WHERE menu_id = :menuId")
+                .bind("menuId", menuId)
+                .map(ReactiveRatingRepository::toMenuRatingInfo)
+                .one();
+    }
+
+    public Flux<MenuRatingInfo> findRatingInfosByMenuIdIn(Collection<Long> menuIds) {
+        return databaseClient.sql(SELECT_RATING_INFOS + "WHERE menu_id = ANY(:menuIds)")
+                .bind("menuIds", menuIds.toArray(Long[]::new))
+                .map(ReactiveRatingRepository::toMenuRatingInfo)
+                .all();
+    }
+
+    private static MenuRatingInfo toMenuRatingInfo(Readable row) {
+        return MenuRatingInfo.builder()
+                .menuId(row.get("menu_id", Long.class))
+                .wilsonScore(row.get("wilson_score", Double.class).floatValue())
+                .avgStars(row.get("avg_stars", Double.class).floatValue())
+                .build();
+    }
+}
@@ -0,0 +1,119 @@
+package ru.javaops.cloudjava.reviewservice.storage.repositories.reactive;
+
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.javaops.cloudjava.reviewservice.dto.ReviewCursor;
+import ru.javaops.cloudjava.reviewservice.dto.SortBy;
+import ru.javaops.cloudjava.reviewservice.storage.model.Review;
+import ru.javaops.cloudjava.reviewservice.storage.repositories.ReviewRepository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Чтение отзывов через R2DBC. Запросы повторяют запросы {@link ru.javaops.cloudjava.reviewservice.storage.repositories.ReviewRepository}.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveReviewRepository {
+    private static final String SELECT_REVIEWS = "SELECT id, menu_id, created_by, comment, rate, created_at FROM reviews ";
+
+    private static final int EXPORT_FETCH_SIZE = Integer.parseInt(ReviewRepository.EXPORT_FETCH_SIZE);
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<Review> findById(Long id) {
+        return databaseClient.sql(SELECT_REVIEWS + "WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveReviewRepository::toReview)
+                .one();
+    }
+
+    public Flux<Review> findAllByCreatedBy(String createdBy, SortBy sort, int from, int size) {
+        return databaseClient.sql(SELECT_REVIEWS + "WHERE created_by = :createdBy ORDER BY " + orderBy(sort) +
+                        " LIMIT :size OFFSET :offset")
+                .bind("createdBy", createdBy)
+                .bind("size", size)
+                .bind("offset", (long) from * size)
+                .map(ReactiveReviewRepository::toReview)
+                .all();
+    }
+
+    public Flux<Review> findAllByMenuId(Long menuId, SortBy sort, int from, int size) {
+        return databaseClient.sql(SELECT_REVIEWS + "WHERE menu_id = :menuId ORDER BY " + orderBy(sort) +
+                        " LIMIT :size OFFSET :offset")
+                .bind("menuId", menuId)
+                .bind("size", size)
+                .bind("offset", (long) from * size)
+                .map(ReactiveReviewRepository::toReview)
+                .all();
+    }
+
+    public Flux<Review> findAllByCreatedBy(String createdBy, ReviewCursor cursor, int size) {
+        return databaseClient.sql(SELECT_REVIEWS + "WHERE created_by = :createdBy AND " + seek(cursor.sort()) +
+                        " ORDER BY " + orderBy(cursor.sort()) + " LIMIT :size")
+                .bind("createdBy", createdBy)
+                .bind("createdAt", cursor.createdAt())
+                .bind("id", cursor.id())
+                .bind("size", size)
+                .map(ReactiveReviewRepository::toReview)
+                .all();
+    }
+
+    public Flux<Review> findAllByMenuId(Long menuId, ReviewCursor cursor, int size) {
+        return databaseClient.sql(SELECT_REVIEWS + "WHERE menu_id = :menuId AND " + seek(cursor.sort()) +
+                        " ORDER BY " + orderBy(cursor.sort()) + " LIMIT :size")
+                .bind("menuId", menuId)
+                .bind("createdAt", cursor.createdAt())
+                .bind("id", cursor.id())
+                .bind("size", size)
+                .map(ReactiveReviewRepository::toReview)
+                .all();
+    }
+
+    public Flux<Review> streamAllByMenuId(Long menuId) {
+        return databaseClient.sql(SELECT_REVIEWS + "WHERE menu_id = :menuId ORDER BY created_at, id")
+                .bind("menuId", menuId)
+                .filter((statement, next) -> next.execute(statement.fetchSize(EXPORT_FETCH_SIZE)))
+                .map(ReactiveReviewRepository::toReview)
+                .all();
+    }
+
+    public Flux<Review> streamAllByCreatedBy(String createdBy) {
+        return databaseClient.sql(SELECT_REVIEWS + "WHERE created_by = :createdBy ORDER BY created_at, id")
+                .bind("createdBy", createdBy)
+                .filter((statement, next) -> next.execute(statement.fetchSize(EXPORT_FETCH_SIZE)))
+                .map(ReactiveReviewRepository::toReview)
+                .all();
+    }
+
+    private static String orderBy(SortBy sort) {
+        return switch (sort) {
+            case DATE_ASC -> "created_at, id";
+            case DATE_DESC -> "created_at DESC, id DESC";
+        };
+    }
+
+    private static String seek(SortBy sort) {
+        return switch (sort) {
+            case DATE_ASC -> "(created_at, id) > (:createdAt, :id)";
+            case DATE_DESC -> "(created_at, id) < (:createdAt, :id)";
+        };
+    }
+
+    private static Review toReview(Readable row) {
+        return Review.builder()
+                .id(row.get("id", Long.class))
+                .menuId(row.get("menu_id", Long.class))
+                .createdBy(row.get("created_by", String.class))
+                .comment(row.get("comment", String.class))
+                .rate(row.get("rate", Integer.class))
+                .createdAt(row.get("created_at", LocalDateTime.class))
+                .build();
+    }
+}
@@ -0,0 +1,93 @@
+package ru.javaops.cloudjava.reviewservice.util;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Расчет рейтинга блюда по нижней границе доверительного интервала Уилсона (Wilson Score Confidence Interval)
+ * и средней оценки блюда с шагом 0.5.
+ * <p>
+ * Оценка 5 считается полностью положительной, оценка 1 - полностью отрицательной, промежуточные оценки
+ * делятся между положительными и отрицательными с шагом 0.25.
+ * Те же формулы выдаются в виде SQL выражений, чтобы БД считала рейтинг в том же запросе, что и обновляет
+ * количество оценок. Java и SQL реализации обязаны давать одинаковый результат.
+ */
+public final class RatingCalculator {
+    private static final MathContext PG_FLOAT_TO_NUMERIC = new MathContext(15, RoundingMode.HALF_EVEN);
+    private static final BigDecimal TWO = BigDecimal.valueOf(2);
+
+    private RatingCalculator() {
+    }
+
+    public static double wilsonScore(long one, long two, long three, long four, long five) {
+        double positive = positive(one, two, three, four, five);
+        double negative = negative(one, two, three, four, five);
+        if (positive + negative <= 0) {
+            return 0.0;
+        }
+        return ((positive + 1.9208) / (positive + negative) -
+                1.96 * Math.sqrt((positive * negative) / (positive + negative) + 0.9604) / (positive + negative)
+        ) / (1 + 3.8416 / (positive + negative));
+    }
+
+    public static double avgStars(long one, long two, long three, long four, long five) {
+        long total = one + two + three + four + five;
+        if (total <= 0) {
+            return 0.0;
+        }
+        double positive = positive(one, two, three, four, five);
+        double stars = (((positive / total) * 4) + 1) * 2;
+        // PostgreSQL приводит float к numeric с точностью 15 значащих цифр, а затем округляет до 2 знаков
+        return new BigDecimal(stars, PG_FLOAT_TO_NUMERIC)
+                .setScale(2, RoundingMode.HALF_UP)
+                .divide(TWO)
+                .doubleValue();
+    }
+
+    /**
+     * SQL выражение рейтинга Уилсона. Аргументы - SQL выражения количества оценок от 1 до 5.
+     */
+    public static String wilsonScoreSql(String one, String two, String three, String four, String five) {
+        String positive = positiveSql(one, two, three, four, five);
+        String negative = negativeSql(one, two, three, four, five);
+        String total = "(%s + %s)".formatted(positive, negative);
+        return """
+                CASE WHEN %3$s > 0 THEN (
+                    (%1$s + 1.9208) / %3$s -
+                    1.96 * SQRT((%1$s * %2$s) / %3$s + 0.9604) / %3$s
+                ) / (1 + 3.8416 / %3$s) ELSE 0 END"""
+                .formatted(positive, negative, total);
+    }
+
+    /**
+     * SQL выражение средней оценки. Аргументы - SQL выражения количества оценок от 1 до 5.
+     */
+    public static String avgStarsSql(String one, String two, String three, String four, String five) {
+        String positive = positiveSql(one, two, three, four, five);
+        String total = "((%s) + (%s) + (%s) + (%s) + (%s))".formatted(one, two, three, four, five);
+        return """
+                CASE WHEN %2$s > 0 THEN
+                    CAST(ROUND(CAST((((%1$s / %2$s) * 4) + 1) * 2 AS NUMERIC), 2) / 2 AS FLOAT)
+                ELSE 0 END"""
+                .formatted(positive, total);
+    }
+
+    private static double positive(long one, long two, long three, long four, long five) {
+        return (five * 1.0) + (four * 0.75) + (three * 0.5) + (two * 0.25) + (one * 0.0);
+    }
+
+    private static double negative(long one, long two, long three, long four, long five) {
+        return (five * 0.0) + (four * 0.25) + (three * 0.5) + (two * 0.75) + (one * 1.0);
+    }
+
+    private static String positiveSql(String one, String two, String three, String four, String five) {
+        return "CAST((%s) * 1.0 + (%s) * 0.75 + (%s) * 0.5 + (%s) * 0.25 + (%s) * 0.0 AS FLOAT)"
+                .formatted(five, four, three, two, one);
+    }
+
+    private static String negativeSql(String one, String two, String three, String four, String five) {
+        return "CAST((%s) * 0.0 + (%s) * 0.25 + (%s) * 0.5 + (%s) * 0.75 + (%s) * 1.0 AS FLOAT)"
+                .formatted(five, four, three, two, one);
+    }
+}
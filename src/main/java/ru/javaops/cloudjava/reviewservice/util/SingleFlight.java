@@ -0,0 +1,101 @@
+package ru.javaops.cloudjava.reviewservice.util;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Объединяет одновременные одинаковые запросы: пока выполняется загрузка значения по ключу,
+ * остальные вызовы с тем же ключом не выполняют ее повторно, а ждут и получают тот же результат
+ * или то же исключение. Результат не запоминается: следующий вызов после завершения загрузки выполнит ее заново.
+ * Общий результат передается всем ожидавшим вызовам, поэтому изменять его нельзя.
+ * <p>
+ * Вызовы объединяются, только если их чтения идут на один сервер: запрос пользователя в окне read-your-writes
+ * не получит результат, загруженный с реплики.
+ */
+public class SingleFlight<K, V> implements MeterBinder {
+    private final ConcurrentHashMap<Flight<K>, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final String name;
+    private final BooleanSupplier primaryRequired;
+
+    public SingleFlight(String name) {
+        this(name, () -> false);
+    }
+
+    /**
+     * @param primaryRequired направлены ли чтения текущего потока на основной сервер
+     */
+    public SingleFlight(String name, BooleanSupplier primaryRequired) {
+        this.name = name;
+        this.primaryRequired = primaryRequired;
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        var future = new CompletableFuture<V>();
+        var flight = new Flight<>(key, primaryRequired.getAsBoolean());
+        var existing = inFlight.putIfAbsent(flight, future);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+        executions.increment();
+        try {
+            V value = loader.get();
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error ex) {
+            future.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(flight, future);
+        }
+    }
+
+    public long executionCount() {
+        return executions.sum();
+    }
+
+    public long coalescedCount() {
+        return coalesced.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("singleflight.calls", executions, LongAdder::sum)
+                .tag("name", name)
+                .tag("result", "executed")
+                .description("Calls that performed the load")
+                .register(registry);
+        FunctionCounter.builder("singleflight.calls", coalesced, LongAdder::sum)
+                .tag("name", name)
+                .tag("result", "coalesced")
+                .description("Calls that waited for a load already in flight")
+                .register(registry);
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private record Flight<K>(K key, boolean primaryRequired) {
+    }
+}
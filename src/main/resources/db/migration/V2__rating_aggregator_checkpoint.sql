@@ -0,0 +1,4 @@
+CREATE TABLE rating_aggregator_checkpoint(
+    id SMALLINT PRIMARY KEY CHECK (id = 1),
+    flushed_before TIMESTAMP NOT NULL
+);
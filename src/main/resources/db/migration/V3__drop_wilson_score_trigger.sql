@@ -0,0 +1,3 @@
+-- рейтинг и средняя оценка теперь вычисляются в том же запросе, что и обновляет количество оценок
+DROP TRIGGER IF EXISTS trigger_update_wilson_score ON ratings;
+DROP FUNCTION IF EXISTS calculate_wilson_score();
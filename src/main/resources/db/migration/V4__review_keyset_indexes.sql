@@ -0,0 +1,4 @@
+-- индексы для постраничного чтения отзывов по ключу (created_at, id) без сортировки и OFFSET.
+-- CONCURRENTLY не блокирует запись в reviews, поэтому миграция выполняется вне транзакции
+CREATE INDEX CONCURRENTLY IF NOT EXISTS reviews_menu_id_created_at_id_idx ON reviews(menu_id, created_at, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS reviews_created_by_created_at_id_idx ON reviews(created_by, created_at, id);
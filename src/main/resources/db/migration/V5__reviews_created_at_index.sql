@@ -0,0 +1,3 @@
+-- индекс для поиска блюд, получивших отзывы после контрольной точки, при восстановлении рейтингов
+-- в режиме write-behind (RatingRepositoryCustom.recalculateRatingsReviewedSince)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS reviews_created_at_idx ON reviews(created_at);
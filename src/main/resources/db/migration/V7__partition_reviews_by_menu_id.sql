@@ -0,0 +1,46 @@
+-- переводим reviews на секционирование по хешу menu_id: отзывы к блюду лежат в одной секции,
+-- поэтому запросы отзывов к блюду и вставка читают индексы одной секции, а vacuum и перестроение
+-- индексов выполняются по секциям. Первичный ключ секционированной таблицы обязан включать ключ
+-- секционирования, уникальность (menu_id, created_by) сохраняется индексом на всей таблице.
+-- Миграция копирует таблицу целиком и блокирует запись в reviews на время копирования.
+-- Секционированная таблица PostgreSQL 16 не поддерживает IDENTITY, поэтому идентификаторы
+-- выдает обычная последовательность, продолжающая нумерацию старой таблицы.
+LOCK TABLE reviews IN EXCLUSIVE MODE;
+
+ALTER TABLE reviews ALTER COLUMN id DROP IDENTITY;
+CREATE SEQUENCE reviews_id_seq;
+SELECT setval('reviews_id_seq', COALESCE(MAX(id), 0) + 1, false) FROM reviews;
+
+CREATE TABLE reviews_partitioned (
+    id BIGINT NOT NULL DEFAULT nextval('reviews_id_seq'),
+    menu_id BIGINT NOT NULL,
+    created_by TEXT NOT NULL,
+    comment TEXT,
+    rate INTEGER NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    CHECK (rate BETWEEN 1 AND 5),
+    PRIMARY KEY (id, menu_id)
+) PARTITION BY HASH (menu_id);
+
+DO $$
+BEGIN
+    FOR i IN 0..15 LOOP
+        EXECUTE format('CREATE TABLE reviews_p%s PARTITION OF reviews_partitioned FOR VALUES WITH (MODULUS 16, REMAINDER %s)',
+                       lpad(i::text, 2, '0'), i);
+    END LOOP;
+END $$;
+
+INSERT INTO reviews_partitioned(id, menu_id, created_by, comment, rate, created_at)
+SELECT id, menu_id, created_by, comment, rate, created_at FROM reviews;
+
+DROP TABLE reviews;
+ALTER TABLE reviews_partitioned RENAME TO reviews;
+ALTER INDEX reviews_partitioned_pkey RENAME TO reviews_pkey;
+ALTER SEQUENCE reviews_id_seq OWNED BY reviews.id;
+
+CREATE UNIQUE INDEX menu_id_created_by_idx ON reviews(menu_id, created_by);
+CREATE INDEX reviews_menu_id_created_at_id_idx ON reviews(menu_id, created_at, id);
+CREATE INDEX reviews_created_by_created_at_id_idx ON reviews(created_by, created_at, id);
+CREATE INDEX reviews_created_at_idx ON reviews(created_at);
+
+ANALYZE reviews;
@@ -0,0 +1,13 @@
+-- оценки, ожидающие применения к ratings в режиме app.rating.update-mode=outbox.
+-- Строка пишется в транзакции создания отзыва и удаляется в транзакции, применившей ее к ratings,
+-- поэтому каждая оценка учитывается ровно один раз
+CREATE TABLE rating_outbox(
+    id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    menu_id BIGINT NOT NULL,
+    rate_one INTEGER NOT NULL DEFAULT 0,
+    rate_two INTEGER NOT NULL DEFAULT 0,
+    rate_three INTEGER NOT NULL DEFAULT 0,
+    rate_four INTEGER NOT NULL DEFAULT 0,
+    rate_five INTEGER NOT NULL DEFAULT 0,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT clock_timestamp()
+);
@@ -0,0 +1,7 @@
+-- версия изменения рейтинга - идентификатор транзакции, последней изменившей строку.
+-- Новые строки получают ее из значения по умолчанию, запросы изменения рейтингов присваивают ее явно.
+-- Индекс позволяет читать рейтинги, измененные после заданной версии, без обращения к таблице.
+-- Изменчивое значение по умолчанию перезаписывает таблицу при добавлении столбца
+ALTER TABLE ratings ADD COLUMN change_version BIGINT NOT NULL DEFAULT pg_current_xact_id()::text::bigint;
+
+CREATE INDEX ratings_change_version_menu_id_idx ON ratings(change_version, menu_id) INCLUDE (wilson_score, avg_stars);
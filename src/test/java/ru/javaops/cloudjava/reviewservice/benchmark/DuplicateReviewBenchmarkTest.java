@@ -0,0 +1,130 @@
+package ru.javaops.cloudjava.reviewservice.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.javaops.cloudjava.reviewservice.BaseIntegrationTest;
+import ru.javaops.cloudjava.reviewservice.dto.CreateReviewRequest;
+import ru.javaops.cloudjava.reviewservice.exception.ReviewServiceException;
+import ru.javaops.cloudjava.reviewservice.mapper.ReviewMapper;
+import ru.javaops.cloudjava.reviewservice.service.RatingService;
+import ru.javaops.cloudjava.reviewservice.service.ReviewService;
+import ru.javaops.cloudjava.reviewservice.storage.repositories.ReviewRepository;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestData.createReviewRequest;
+
+/**
+ * Сравнивает пропускную способность создания отзывов при нагрузке, где большинство запросов - дубликаты:
+ * прежний путь (save, перехват нарушения уникальности, исключение и откат транзакции)
+ * и INSERT ... ON CONFLICT DO NOTHING RETURNING, которым пользуется ReviewService.
+ * Запуск: ./gradlew benchmark
+ */
+@Tag("benchmark")
+@TestPropertySource(properties = {
+        // вывод каждого SQL запроса в лог искажает замеры
+        "spring.jpa.properties.hibernate.show_sql=false",
+        "logging.level.org.hibernate=INFO",
+        "logging.level.org.springframework=INFO",
+        "logging.level.ru.javaops.cloudjava=WARN"
+})
+class DuplicateReviewBenchmarkTest extends BaseIntegrationTest {
+    private static final int REQUESTS_PER_ROUND = 2_000;
+    // каждая пара (блюдо, пользователь) запрашивается 10 раз: 90% запросов - дубликаты
+    private static final int REQUESTS_PER_KEY = 10;
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int MEASURED_ROUNDS = 5;
+
+    @Autowired
+    private ReviewService reviewService;
+    @Autowired
+    private RatingService ratingService;
+    @Autowired
+    private ReviewRepository reviewRepository;
+    @Autowired
+    private ReviewMapper reviewMapper;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private long nextMenuId = 2_000_000;
+
+    @Test
+    void createReview_duplicateHeavyWorkload_exceptionVersusOnConflict() {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            createReviews(true);
+            createReviews(false);
+        }
+        long exceptionNanos = 0;
+        long onConflictNanos = 0;
+        int exceptionCreated = 0;
+        int onConflictCreated = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            exceptionCreated += createReviews(true);
+            exceptionNanos += System.nanoTime() - start;
+            start = System.nanoTime();
+            onConflictCreated += createReviews(false);
+            onConflictNanos += System.nanoTime() - start;
+        }
+
+        double exception = throughput(exceptionNanos);
+        double onConflict = throughput(onConflictNanos);
+        System.out.printf("Create %d reviews x %d rounds with %d%% duplicates: exception path %.0f requests/s, " +
+                        "ON CONFLICT path %.0f requests/s, speedup x%.2f%n",
+                REQUESTS_PER_ROUND, MEASURED_ROUNDS, 100 - 100 / REQUESTS_PER_KEY, exception, onConflict, onConflict / exception);
+        assertThat(exceptionCreated).isEqualTo(REQUESTS_PER_ROUND / REQUESTS_PER_KEY * MEASURED_ROUNDS);
+        assertThat(onConflictCreated).isEqualTo(exceptionCreated);
+    }
+
+    private int createReviews(boolean exceptionPath) {
+        long firstMenuId = nextMenuId;
+        int keys = REQUESTS_PER_ROUND / REQUESTS_PER_KEY;
+        nextMenuId += keys;
+        int created = 0;
+        for (int i = 0; i < REQUESTS_PER_ROUND; i++) {
+            var request = createReviewRequest(firstMenuId + i % keys, i % 5 + 1);
+            boolean success;
+            if (exceptionPath) {
+                try {
+                    createReviewThrowingOnDuplicate(request);
+                    success = true;
+                } catch (ReviewServiceException ex) {
+                    success = false;
+                }
+            } else {
+                success = reviewService.createReview(request, "Benchmark").isPresent();
+            }
+            if (success) {
+                created++;
+            }
+        }
+        return created;
+    }
+
+    /**
+     * Прежняя реализация ReviewServiceImpl.createReview: дубликат обнаруживается по исключению уникального индекса.
+     */
+    private void createReviewThrowingOnDuplicate(CreateReviewRequest request) {
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                var review = reviewRepository.save(reviewMapper.toDomain(request, "Benchmark"));
+                ratingService.saveRating(request.getMenuId(), request.getRate());
+                reviewMapper.toReviewResponse(review);
+            } catch (DataIntegrityViolationException ex) {
+                var msg = "Failed to create Review to menu with id %d by user with name: %s, because the user already placed Review to that menu."
+                        .formatted(request.getMenuId(), "Benchmark");
+                throw new ReviewServiceException(msg, HttpStatus.CONFLICT);
+            }
+        });
+    }
+
+    private static double throughput(long nanos) {
+        return (double) REQUESTS_PER_ROUND * MEASURED_ROUNDS / nanos * TimeUnit.SECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,115 @@
+package ru.javaops.cloudjava.reviewservice.benchmark;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.javaops.cloudjava.reviewservice.BaseIntegrationTest;
+import ru.javaops.cloudjava.reviewservice.storage.model.Review;
+import ru.javaops.cloudjava.reviewservice.storage.repositories.ReviewRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+
+/**
+ * Сравнивает пропускную способность массового сохранения отзывов: по одному INSERT на сущность через Hibernate
+ * и одним INSERT ... SELECT FROM unnest на пакет, которым сохраняет отзывы пакетная загрузка.
+ * Запуск: ./gradlew benchmark
+ */
+@Tag("benchmark")
+@TestPropertySource(properties = {
+        // вывод каждого SQL запроса в лог искажает замеры
+        "spring.jpa.properties.hibernate.show_sql=false",
+        "logging.level.org.hibernate=INFO",
+        "logging.level.org.springframework=INFO"
+})
+class ReviewBulkSaveBenchmarkTest extends BaseIntegrationTest {
+    private static final int REVIEWS_PER_ROUND = 5_000;
+    private static final int CHUNK_SIZE = 500;
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int MEASURED_ROUNDS = 5;
+
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private ReviewRepository reviewRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private long nextMenuId = 1_000_000;
+
+    @Test
+    void bulkSave_singleStatementInsertVersusEntityInserts() {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            persistReviews();
+            insertReviews();
+        }
+        long persistNanos = 0;
+        long insertNanos = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            persistNanos += persistReviews();
+            insertNanos += insertReviews();
+        }
+
+        double persisted = throughput(persistNanos);
+        double inserted = throughput(insertNanos);
+        System.out.printf("Bulk save of %d reviews x %d rounds: entity inserts %.0f reviews/s, unnest insert of %d %.0f reviews/s, speedup x%.2f%n",
+                REVIEWS_PER_ROUND, MEASURED_ROUNDS, persisted, CHUNK_SIZE, inserted, inserted / persisted);
+        assertThat(countBenchmarkReviews())
+                .isEqualTo((long) REVIEWS_PER_ROUND * (WARMUP_ROUNDS + MEASURED_ROUNDS) * 2);
+    }
+
+    private long persistReviews() {
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 1; i <= REVIEWS_PER_ROUND; i++) {
+                entityManager.persist(newReview(i));
+                if (i % CHUNK_SIZE == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+        });
+        return System.nanoTime() - start;
+    }
+
+    private long insertReviews() {
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Review> chunk = new ArrayList<>(CHUNK_SIZE);
+            for (int i = 1; i <= REVIEWS_PER_ROUND; i++) {
+                chunk.add(newReview(i));
+                if (chunk.size() == CHUNK_SIZE) {
+                    reviewRepository.insertAllSkippingConflicts(chunk, LocalDateTime.now());
+                    chunk.clear();
+                }
+            }
+        });
+        return System.nanoTime() - start;
+    }
+
+    private Review newReview(int i) {
+        return Review.builder()
+                .menuId(nextMenuId++)
+                .createdBy("Benchmark")
+                .comment("Comment")
+                .rate(i % 5 + 1)
+                .build();
+    }
+
+    private long countBenchmarkReviews() {
+        return transactionTemplate.execute(status -> entityManager
+                .createQuery("select count(r) from Review r where r.createdBy = 'Benchmark'", Long.class)
+                .getSingleResult());
+    }
+
+    private static double throughput(long nanos) {
+        return (double) REVIEWS_PER_ROUND * MEASURED_ROUNDS / nanos * TimeUnit.SECONDS.toNanos(1);
+    }
+}
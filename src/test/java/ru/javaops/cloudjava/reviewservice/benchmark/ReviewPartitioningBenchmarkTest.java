@@ -0,0 +1,129 @@
+package ru.javaops.cloudjava.reviewservice.benchmark;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import ru.javaops.cloudjava.reviewservice.BaseIntegrationTest;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+
+/**
+ * Сравнивает задержку вставки отзыва и чтения первой страницы отзывов к блюду в секционированной таблице reviews
+ * и в несекционированной копии reviews_heap с теми же индексами.
+ * Количество отзывов задается -Dbenchmark.reviews (по умолчанию 1 млн), на блюдо приходится 100 отзывов.
+ * Запуск: ./gradlew benchmark -Dbenchmark.reviews=100000000
+ */
+@Tag("benchmark")
+@TestPropertySource(properties = {
+        // вывод каждого SQL запроса в лог искажает замеры
+        "spring.jpa.properties.hibernate.show_sql=false",
+        "logging.level.org.hibernate=INFO",
+        "logging.level.org.springframework=INFO"
+})
+class ReviewPartitioningBenchmarkTest extends BaseIntegrationTest {
+    private static final long REVIEWS = Long.getLong("benchmark.reviews", 1_000_000);
+    private static final long REVIEWS_PER_MENU = 100;
+    private static final long MENUS = Math.max(1, REVIEWS / REVIEWS_PER_MENU);
+    private static final int WARMUP_OPERATIONS = 2_000;
+    private static final int MEASURED_OPERATIONS = 10_000;
+    private static final long MAX_LATENCY_MICROS = TimeUnit.SECONDS.toMicros(10);
+
+    private static final String FILL_SQL = """
+            INSERT INTO %s(menu_id, created_by, comment, rate, created_at)
+            SELECT g %% %d, 'User' || (g / %d), 'Comment', g %% 5 + 1, TIMESTAMP '2024-01-01' + g * INTERVAL '1 second'
+            FROM generate_series(1, %d) g
+            """;
+    // те же запросы, что ReviewRepositoryCustomImpl.INSERT_SKIPPING_CONFLICT_SQL и ReviewRepository.findAllByMenuIdAfter
+    private static final String INSERT_SQL = """
+            INSERT INTO %s(menu_id, created_by, comment, rate, created_at)
+            VALUES (?, ?, 'Comment', 5, ?)
+            ON CONFLICT (menu_id, created_by) DO NOTHING
+            RETURNING id, menu_id, created_by, comment, rate, created_at
+            """;
+    private static final String LIST_SQL = """
+            SELECT * FROM %s
+            WHERE menu_id = ? AND (created_at, id) > (?, ?)
+            ORDER BY created_at, id
+            LIMIT 20
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long nextUser;
+
+    @AfterEach
+    void dropHeapTable() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS reviews_heap");
+    }
+
+    @Test
+    void insertAndListing_partitionedVersusHeapTable() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS reviews_heap");
+        jdbcTemplate.execute("CREATE TABLE reviews_heap (LIKE reviews INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        jdbcTemplate.execute("ALTER TABLE reviews_heap ADD PRIMARY KEY (id)");
+        jdbcTemplate.execute("CREATE UNIQUE INDEX ON reviews_heap(menu_id, created_by)");
+        jdbcTemplate.execute("CREATE INDEX ON reviews_heap(menu_id, created_at, id)");
+        for (String table : new String[]{"reviews", "reviews_heap"}) {
+            long start = System.nanoTime();
+            jdbcTemplate.update(FILL_SQL.formatted(table, MENUS, MENUS, REVIEWS));
+            jdbcTemplate.execute("ANALYZE " + table);
+            System.out.printf("Filled %s with %d reviews in %d s%n",
+                    table, REVIEWS, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start));
+        }
+
+        System.out.printf("%-28s %10s %10s %10s %10s%n", "operation", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (String table : new String[]{"reviews", "reviews_heap"}) {
+            print(table + " insert", measure(() -> insert(table)));
+            print(table + " menu listing", measure(() -> list(table)));
+        }
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM reviews_heap", Long.class))
+                .isEqualTo(REVIEWS + WARMUP_OPERATIONS + MEASURED_OPERATIONS);
+    }
+
+    private void insert(String table) {
+        var inserted = jdbcTemplate.queryForList(INSERT_SQL.formatted(table),
+                randomMenuId(), "Benchmark" + nextUser++, Timestamp.valueOf(LocalDateTime.now()));
+        assertThat(inserted).hasSize(1);
+    }
+
+    private void list(String table) {
+        jdbcTemplate.queryForList(LIST_SQL.formatted(table),
+                randomMenuId(), Timestamp.valueOf(LocalDateTime.of(2024, 1, 1, 0, 0)), 0L);
+    }
+
+    private Histogram measure(Runnable operation) {
+        for (int i = 0; i < WARMUP_OPERATIONS; i++) {
+            operation.run();
+        }
+        var histogram = new Histogram(MAX_LATENCY_MICROS, 3);
+        for (int i = 0; i < MEASURED_OPERATIONS; i++) {
+            long start = System.nanoTime();
+            operation.run();
+            histogram.recordValue(Math.min(MAX_LATENCY_MICROS, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start)));
+        }
+        return histogram;
+    }
+
+    private static long randomMenuId() {
+        return ThreadLocalRandom.current().nextLong(MENUS);
+    }
+
+    private static void print(String operation, Histogram histogram) {
+        System.out.printf("%-28s %10.2f %10.2f %10.2f %10.2f%n",
+                operation,
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+    }
+}
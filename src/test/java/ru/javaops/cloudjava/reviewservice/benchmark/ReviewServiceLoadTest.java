@@ -0,0 +1,220 @@
+package ru.javaops.cloudjava.reviewservice.benchmark;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.TestPropertySource;
+import ru.javaops.cloudjava.reviewservice.BaseIntegrationTest;
+import ru.javaops.cloudjava.reviewservice.controller.ReviewController;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+
+/**
+ * Нагрузочный тест: приложение на случайном порту поверх Postgres из Testcontainers, смешанная нагрузка
+ * по HTTP с перекосом в сторону популярных блюд. Для каждого эндпоинта в HdrHistogram записывается задержка
+ * ответа, в конце печатаются p50/p99/p999.
+ * <p>
+ * Запуск: ./gradlew loadTest. Параметры нагрузки (load.*) и настройки приложения (spring.*, server.*)
+ * передаются системными свойствами, например:
+ * ./gradlew loadTest -Dload.clients=64 -Dload.duration=60s -Dspring.datasource.hikari.maximum-pool-size=24
+ * <p>
+ * Сравнение платформенных и виртуальных потоков - два запуска с одинаковыми load.*:
+ * ./gradlew loadTest -Dload.clients=256 и ./gradlew loadTest -Dload.clients=256 -Dspring.threads.virtual.enabled=true.
+ * Число клиентов должно превышать пул Tomcat (200), иначе режимы не различаются.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = {
+        // вывод каждого SQL запроса и отладочные логи искажают замеры
+        "spring.jpa.properties.hibernate.show_sql=false",
+        "logging.level.org.hibernate=INFO",
+        "logging.level.org.springframework=INFO"
+})
+class ReviewServiceLoadTest extends BaseIntegrationTest {
+    private static final int CLIENTS = Integer.getInteger("load.clients", 32);
+    private static final Duration WARMUP = Duration.parse("PT" + System.getProperty("load.warmup", "10s"));
+    private static final Duration DURATION = Duration.parse("PT" + System.getProperty("load.duration", "30s"));
+    private static final int MENUS = Integer.getInteger("load.menus", 1000);
+    private static final int HOT_MENUS = Integer.getInteger("load.hot-menus", 10);
+    // доля запросов, приходящихся на популярные блюда
+    private static final double HOT_SHARE = Double.parseDouble(System.getProperty("load.hot-share", "0.8"));
+    private static final int RATINGS_BATCH = 20;
+    private static final long MAX_LATENCY_MICROS = TimeUnit.SECONDS.toMicros(30);
+    private static final Pattern REVIEW_ID = Pattern.compile("\"id\":(\\d+)");
+
+    private static final String CREATE = "POST /v1/reviews";
+    private static final String GET = "GET /v1/reviews/{id}";
+    private static final String MENU_LISTING = "GET /v1/reviews/menu-item/{menuId}";
+    private static final String RATINGS = "POST /v1/reviews/ratings";
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newFixedThreadPool(4))
+            .build();
+    // кольцевой буфер идентификаторов созданных отзывов, из которого выбираются отзывы для чтения
+    private final AtomicLongArray createdReviewIds = new AtomicLongArray(10_000);
+    private final AtomicLong createdReviews = new AtomicLong();
+    private final AtomicLong userSequence = new AtomicLong();
+
+    @Test
+    void mixedWorkload_withHotDishSkew() throws Exception {
+        runWorkload(WARMUP, new Stats());
+
+        var stats = new Stats();
+        runWorkload(DURATION, stats);
+
+        stats.print();
+        assertThat(stats.serverErrors.sum())
+                .as("5xx responses")
+                .isZero();
+    }
+
+    private void runWorkload(Duration duration, Stats stats) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Future<?>> clients = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                clients.add(executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        nextRequest(stats);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : clients) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void nextRequest(Stats stats) throws Exception {
+        var random = ThreadLocalRandom.current();
+        int operation = random.nextInt(100);
+        if (operation < 20) {
+            var body = """
+                    {"menuId": %d, "comment": "Load test comment", "rate": %d}
+                    """.formatted(nextMenuId(), random.nextInt(1, 6));
+            var response = send(stats, CREATE, HttpRequest.newBuilder(uri("/v1/reviews"))
+                    .header(ReviewController.USER_HEADER, "LoadUser" + userSequence.incrementAndGet())
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body)));
+            Matcher matcher = REVIEW_ID.matcher(response.body());
+            if (response.statusCode() == 201 && matcher.find()) {
+                int slot = (int) (createdReviews.getAndIncrement() % createdReviewIds.length());
+                createdReviewIds.set(slot, Long.parseLong(matcher.group(1)));
+            }
+        } else if (operation < 45) {
+            int created = (int) Math.min(createdReviews.get(), createdReviewIds.length());
+            long reviewId = created == 0 ? 0 : createdReviewIds.get(random.nextInt(created));
+            if (reviewId == 0) {
+                return;
+            }
+            send(stats, GET, HttpRequest.newBuilder(uri("/v1/reviews/" + reviewId)).GET());
+        } else if (operation < 80) {
+            var sortBy = random.nextBoolean() ? "date_asc" : "date_desc";
+            send(stats, MENU_LISTING, HttpRequest.newBuilder(
+                    uri("/v1/reviews/menu-item/" + nextMenuId() + "?from=0&size=10&sortBy=" + sortBy)).GET());
+        } else {
+            var menuIds = LongStream.generate(this::nextMenuId)
+                    .limit(RATINGS_BATCH)
+                    .distinct()
+                    .mapToObj(Long::toString)
+                    .collect(Collectors.joining(",", "{\"menuIds\": [", "]}"));
+            send(stats, RATINGS, HttpRequest.newBuilder(uri("/v1/reviews/ratings"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(menuIds)));
+        }
+    }
+
+    private long nextMenuId() {
+        var random = ThreadLocalRandom.current();
+        return random.nextDouble() < HOT_SHARE
+                ? random.nextLong(1, HOT_MENUS + 1)
+                : random.nextLong(HOT_MENUS + 1, MENUS + 1);
+    }
+
+    private HttpResponse<String> send(Stats stats, String endpoint, HttpRequest.Builder request) throws Exception {
+        long start = System.nanoTime();
+        var response = client.send(request.timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.ofString());
+        long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+        stats.record(endpoint, latencyMicros, response.statusCode());
+        return response;
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static class Stats {
+        private final Map<String, Histogram> histograms = Map.of(
+                CREATE, new ConcurrentHistogram(MAX_LATENCY_MICROS, 3),
+                GET, new ConcurrentHistogram(MAX_LATENCY_MICROS, 3),
+                MENU_LISTING, new ConcurrentHistogram(MAX_LATENCY_MICROS, 3),
+                RATINGS, new ConcurrentHistogram(MAX_LATENCY_MICROS, 3));
+        private final long startNanos = System.nanoTime();
+        private final LongAdder clientErrors = new LongAdder();
+        private final LongAdder serverErrors = new LongAdder();
+
+        void record(String endpoint, long latencyMicros, int status) {
+            histograms.get(endpoint).recordValue(Math.min(latencyMicros, MAX_LATENCY_MICROS));
+            if (status >= 500) {
+                serverErrors.increment();
+            } else if (status >= 400) {
+                // 409 при создании отзыва возможен, только если генератор пользователей повторился
+                clientErrors.increment();
+            }
+        }
+
+        void print() {
+            double seconds = (System.nanoTime() - startNanos) / 1e9;
+            System.out.printf("Load test: clients=%d, duration=%s, menus=%d, hot menus=%d (%.0f%% of requests)%n",
+                    CLIENTS, DURATION, MENUS, HOT_MENUS, HOT_SHARE * 100);
+            System.out.printf("%-36s %10s %10s %10s %10s %10s %10s%n",
+                    "endpoint", "count", "rps", "p50 ms", "p99 ms", "p999 ms", "max ms");
+            histograms.entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey())
+                    .forEach(entry -> {
+                        var histogram = entry.getValue();
+                        System.out.printf("%-36s %10d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+                                entry.getKey(),
+                                histogram.getTotalCount(),
+                                histogram.getTotalCount() / seconds,
+                                histogram.getValueAtPercentile(50) / 1000.0,
+                                histogram.getValueAtPercentile(99) / 1000.0,
+                                histogram.getValueAtPercentile(99.9) / 1000.0,
+                                histogram.getMaxValue() / 1000.0);
+                    });
+            System.out.printf("4xx responses: %d, 5xx responses: %d%n", clientErrors.sum(), serverErrors.sum());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package ru.javaops.cloudjava.reviewservice.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+
+class ConcurrencyLimitFilterTest {
+
+    @Test
+    void doFilter_rejectsRequest_whenAllPermitsAreTaken() throws Exception {
+        var filter = new ConcurrencyLimitFilter(1, Duration.ofMillis(50));
+        var inside = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var first = executor.submit(() -> {
+                filter.doFilter(new MockHttpServletRequest("GET", "/v1/reviews/1"), new MockHttpServletResponse(),
+                        (request, response) -> {
+                            inside.countDown();
+                            try {
+                                release.await();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        });
+                return null;
+            });
+            assertThat(inside.await(5, TimeUnit.SECONDS)).isTrue();
+
+            var rejected = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest("GET", "/v1/reviews/2"), rejected,
+                    (request, response) -> {
+                        throw new AssertionError("Request must not reach the chain");
+                    });
+            assertThat(rejected.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+            assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+        }
+        assertThat(filter.availablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void doFilter_releasesPermit_whenChainThrows() {
+        var filter = new ConcurrencyLimitFilter(1, Duration.ofMillis(50));
+        try {
+            filter.doFilter(new MockHttpServletRequest("GET", "/v1/reviews/1"), new MockHttpServletResponse(),
+                    (request, response) -> {
+                        throw new IllegalStateException("boom");
+                    });
+        } catch (Exception ignored) {
+        }
+        assertThat(filter.availablePermits()).isEqualTo(1);
+    }
+}
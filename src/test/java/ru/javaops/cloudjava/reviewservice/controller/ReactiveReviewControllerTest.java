@@ -0,0 +1,23 @@
+package ru.javaops.cloudjava.reviewservice.controller;
+
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Прогоняет тесты {@link ReviewControllerTest} на реактивном стеке: те же запросы обрабатывают
+ * {@link ReviewRouter} и {@link ReviewHandler}, а чтение выполняется через R2DBC.
+ */
+@Testcontainers
+@ActiveProfiles("reactive")
+@AutoConfigureWebTestClient
+class ReactiveReviewControllerTest extends ReviewControllerTest {
+
+    // один контейнер для JDBC (Flyway, запись, @Sql) и R2DBC соединений
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16.1");
+}
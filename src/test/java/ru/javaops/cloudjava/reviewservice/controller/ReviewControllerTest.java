@@ -3,18 +3,30 @@ package ru.javaops.cloudjava.reviewservice.controller;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import ru.javaops.cloudjava.reviewservice.BaseIntegrationTest;
+import ru.javaops.cloudjava.reviewservice.dto.BatchItemStatus;
+import ru.javaops.cloudjava.reviewservice.dto.BatchReviewResult;
+import ru.javaops.cloudjava.reviewservice.dto.CreateReviewsBatchRequest;
+import ru.javaops.cloudjava.reviewservice.dto.CreateReviewsBatchResponse;
 import ru.javaops.cloudjava.reviewservice.dto.GetRatingsRequest;
+import ru.javaops.cloudjava.reviewservice.dto.RankedMenuRating;
+import ru.javaops.cloudjava.reviewservice.dto.RatingChangesResponse;
 import ru.javaops.cloudjava.reviewservice.dto.RatedReviewsResponse;
 import ru.javaops.cloudjava.reviewservice.dto.RatingsResponse;
 import ru.javaops.cloudjava.reviewservice.dto.ReviewResponse;
+import ru.javaops.cloudjava.reviewservice.service.rating.RatingLeaderboard;
 import ru.javaops.cloudjava.reviewservice.storage.model.MenuRatingInfo;
+import ru.javaops.cloudjava.reviewservice.storage.model.Rating;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
@@ -27,6 +39,8 @@ class ReviewControllerTest extends BaseIntegrationTest {
 
     @Autowired
     private WebTestClient webTestClient;
+    @Autowired
+    private RatingLeaderboard leaderboard;
 
     @Test
     void getRatingsOfMenus_returnsCorrectRatings_whenSomeMenusHaveReviews() {
@@ -108,6 +122,29 @@ class ReviewControllerTest extends BaseIntegrationTest {
                 });
     }
 
+    @Test
+    void getTopRated_returnsMenusOrderedByRating() {
+        leaderboard.rebuild();
+
+        webTestClient.get()
+                .uri(BASE_URL + "/ratings/top?from=0&size=3")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(RankedMenuRating.class)
+                .value(top -> {
+                    assertThat(top).map(RankedMenuRating::getRank).containsExactly(1L, 2L, 3L);
+                    assertThat(top).map(RankedMenuRating::getMenuId).containsExactly(MENU_ONE, MENU_FOUR, MENU_TEN);
+                });
+    }
+
+    @Test
+    void getTopRated_returnsBadRequest_whenPageIsTooLarge() {
+        webTestClient.get()
+                .uri(BASE_URL + "/ratings/top?size=101")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
     @Test
     void getReviewsOfMenu_returnsCorrectResponse_whenMenuHasReviews() {
         webTestClient.get()
@@ -138,6 +175,74 @@ class ReviewControllerTest extends BaseIntegrationTest {
 
     }
 
+    @Test
+    void getReviewsOfMenu_readsAllPagesByCursor_whenSortedAscending() {
+        List<ReviewResponse> reviews = readAllMenuTenPagesByCursor("date_asc");
+
+        assertThat(reviews)
+                .map(ReviewResponse::getRate)
+                .isEqualTo(List.of(5, 4, 3, 2, 1));
+    }
+
+    @Test
+    void getReviewsOfMenu_readsAllPagesByCursor_whenSortedDescending() {
+        List<ReviewResponse> reviews = readAllMenuTenPagesByCursor("date_desc");
+
+        assertThat(reviews)
+                .map(ReviewResponse::getRate)
+                .isEqualTo(List.of(1, 2, 3, 4, 5));
+    }
+
+    @Test
+    void getReviewsOfMenu_returnsBadRequest_whenCursorIsMalformed() {
+        webTestClient.get()
+                .uri(BASE_URL + "/menu-item/" + MENU_TEN + "?size=2&cursor=not-a-cursor")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void getReviewsOfMenu_returnsBadRequest_whenCursorWasIssuedForAnotherSort() {
+        String cursor = webTestClient.get()
+                .uri(BASE_URL + "/menu-item/" + MENU_TEN + "?size=2&sortBy=date_asc")
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(RatedReviewsResponse.class)
+                .getResponseHeaders()
+                .getFirst(ReviewController.NEXT_CURSOR_HEADER);
+
+        webTestClient.get()
+                .uri(BASE_URL + "/menu-item/" + MENU_TEN + "?size=2&sortBy=date_desc&cursor=" + cursor)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void getReviewsOfUser_readsNextPageByCursor() {
+        String cursor = webTestClient.get()
+                .uri(BASE_URL + "/my?size=3&sortBy=date_asc")
+                .header(ReviewController.USER_HEADER, USER_NAME)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(ReviewController.NEXT_CURSOR_HEADER)
+                .returnResult(ReviewResponse.class)
+                .getResponseHeaders()
+                .getFirst(ReviewController.NEXT_CURSOR_HEADER);
+
+        webTestClient.get()
+                .uri(BASE_URL + "/my?size=3&sortBy=date_asc&cursor=" + cursor)
+                .header(ReviewController.USER_HEADER, USER_NAME)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist(ReviewController.NEXT_CURSOR_HEADER)
+                .expectBodyList(ReviewResponse.class)
+                .value(reviewResponses -> {
+                    assertThat(reviewResponses)
+                            .map(ReviewResponse::getCreatedAt)
+                            .isEqualTo(List.of(REVIEW_DATE_MENU_7, REVIEW_DATE_MENU_8));
+                });
+    }
+
     @Test
     void getReviewsOfUser_returnsCorrectList_whenUserHasReviews() {
         webTestClient.get()
@@ -195,6 +300,170 @@ class ReviewControllerTest extends BaseIntegrationTest {
                 .expectStatus().isNotFound();
     }
 
+    @Test
+    void getReview_returnsNotModified_whenETagMatches() {
+        var reviewId = getReviewIdByMenuId(MENU_ONE);
+        var etag = webTestClient.get()
+                .uri(BASE_URL + "/" + reviewId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.ETAG)
+                .returnResult(ReviewResponse.class)
+                .getResponseHeaders().getETag();
+
+        webTestClient.get()
+                .uri(BASE_URL + "/" + reviewId)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, etag)
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    void getReview_ignoresETag_whenItWasNotIssuedForThatReview() {
+        var reviewId = getReviewIdByMenuId(MENU_ONE);
+        webTestClient.get()
+                .uri(BASE_URL + "/" + reviewId)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"review-" + reviewId + "-0\"")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(ReviewResponse.class)
+                .value(review -> assertThat(review.getId()).isEqualTo(reviewId));
+
+        long unknown = 1000L;
+        webTestClient.get()
+                .uri(BASE_URL + "/" + unknown)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"review-" + unknown + "-0\"")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void getReviewsOfMenu_returnsNotModifiedUntilReviewIsCreated() {
+        var uri = BASE_URL + "/menu-item/" + MENU_ONE + "?from=0&size=10&sortBy=date_asc";
+        var etag = webTestClient.get()
+                .uri(uri)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(RatedReviewsResponse.class)
+                .getResponseHeaders().getETag();
+
+        webTestClient.get()
+                .uri(uri)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isNotModified();
+
+        webTestClient.post()
+                .uri(BASE_URL)
+                .header(ReviewController.USER_HEADER, "Alex")
+                .bodyValue(createReviewRequest(MENU_ONE, 3))
+                .exchange()
+                .expectStatus().isCreated();
+
+        webTestClient.get()
+                .uri(uri)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().value(HttpHeaders.ETAG, newTag -> assertThat(newTag).isNotEqualTo(etag))
+                .expectBody(RatedReviewsResponse.class)
+                .value(response -> assertThat(response.getReviews()).hasSize(2));
+    }
+
+    @Test
+    void getRatings_returnsNotModified_whenRatingsDidNotChange() {
+        var uri = BASE_URL + "/ratings?menuIds=" + MENU_ONE + "," + MENU_TWO;
+        var etag = webTestClient.get()
+                .uri(uri)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(RatingsResponse.class)
+                .getResponseHeaders().getETag();
+
+        webTestClient.get()
+                .uri(uri)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isNotModified();
+
+        webTestClient.get()
+                .uri(BASE_URL + "/ratings?menuIds=" + MENU_ONE)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.post()
+                .uri(BASE_URL)
+                .header(ReviewController.USER_HEADER, "Alex")
+                .bodyValue(createReviewRequest(MENU_TWO, 4))
+                .exchange()
+                .expectStatus().isCreated();
+
+        webTestClient.get()
+                .uri(uri)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    void getRatings_returnsBadRequest_whenMenuIdsAreMissing() {
+        webTestClient.get()
+                .uri(BASE_URL + "/ratings")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void getRatingsOfMenus_ignoresIfNoneMatch() {
+        // POST не отвечает 304: If-None-Match поддерживает GET /ratings
+        webTestClient.post()
+                .uri(BASE_URL + "/ratings")
+                .header(HttpHeaders.IF_NONE_MATCH, "*")
+                .bodyValue(GetRatingsRequest.builder().menuIds(Set.of(MENU_ONE)).build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist(HttpHeaders.ETAG);
+    }
+
+    @Test
+    void getRatingChanges_returnsAllRatingsByPages_thenOnlyChangedOnes() {
+        List<MenuRatingInfo> ratings = new ArrayList<>();
+        String cursor = null;
+        RatingChangesResponse page;
+        do {
+            page = getRatingChanges(cursor, 3);
+            ratings.addAll(page.getMenuRatings());
+            cursor = page.getNextCursor();
+        } while (page.isHasMore());
+        assertThat(ratings)
+                .map(MenuRatingInfo::getMenuId)
+                .containsExactlyInAnyOrderElementsOf(ratingRepository.findAll().stream().map(Rating::getMenuId).toList());
+
+        assertThat(getRatingChanges(cursor, 3).getMenuRatings()).isEmpty();
+
+        ratingRepository.incrementRating(MENU_TEN, 5);
+        ratingRepository.incrementRating(MENU_UNKNOWN, 5);
+        ratingRepository.upsertRating(MENU_UNKNOWN, 4);
+
+        var changes = getRatingChanges(cursor, 3);
+        assertThat(changes.getMenuRatings())
+                .map(MenuRatingInfo::getMenuId)
+                .containsExactly(MENU_TEN, MENU_UNKNOWN);
+        assertThat(changes.isHasMore()).isFalse();
+        assertThat(getRatingChanges(changes.getNextCursor(), 3).getMenuRatings()).isEmpty();
+    }
+
+    @Test
+    void getRatingChanges_returnsBadRequest_whenCursorIsMalformed() {
+        webTestClient.get()
+                .uri(BASE_URL + "/ratings/changes?cursor=malformed")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
     @Test
     void createReview_createsReview() {
         var request = createReviewRequest(MENU_ONE, 5);
@@ -219,6 +488,45 @@ class ReviewControllerTest extends BaseIntegrationTest {
                 });
     }
 
+    @Test
+    void createReviews_returnsStatusOfEachItem() {
+        var request = CreateReviewsBatchRequest.builder()
+                .reviews(List.of(
+                        batchReviewItem(MENU_ONE, USER_ONE, 5),
+                        batchReviewItem(MENU_ONE, "Alex", 5)))
+                .build();
+
+        webTestClient.post()
+                .uri(BASE_URL + "/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(CreateReviewsBatchResponse.class)
+                .value(response -> {
+                    assertThat(response.getCreated()).isEqualTo(1);
+                    assertThat(response.getDuplicates()).isEqualTo(1);
+                    assertThat(response.getResults())
+                            .map(BatchReviewResult::getStatus)
+                            .containsExactly(BatchItemStatus.DUPLICATE, BatchItemStatus.CREATED);
+                    assertThat(response.getResults().get(1).getReview().getCreatedBy()).isEqualTo("Alex");
+                });
+    }
+
+    @Test
+    void createReviews_returnsBadRequest_whenItemIsInvalid() {
+        var request = CreateReviewsBatchRequest.builder()
+                .reviews(List.of(batchReviewItem(MENU_ONE, "Alex", 6)))
+                .build();
+
+        webTestClient.post()
+                .uri(BASE_URL + "/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
     @Test
     void createReview_returnsConflictWhenUserTriesToSendSecondReviewToSameMenu() {
         var request = createReviewRequest(MENU_ONE, 5);
@@ -231,4 +539,80 @@ class ReviewControllerTest extends BaseIntegrationTest {
                 .exchange()
                 .expectStatus().isEqualTo(HttpStatus.CONFLICT);
     }
-}
\ No newline at end of file
+
+    @Test
+    void exportReviewsOfMenu_streamsAllReviewsAsNdjson() {
+        var reviews = webTestClient.get()
+                .uri(BASE_URL + "/menu-item/" + MENU_TEN + "/export")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(ReviewResponse.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertThat(reviews)
+                .map(ReviewResponse::getRate)
+                .isEqualTo(List.of(5, 4, 3, 2, 1));
+        assertThat(reviews).allMatch(review -> review.getMenuId().equals(MENU_TEN));
+    }
+
+    @Test
+    void exportReviewsOfUser_streamsAllReviewsAsNdjson() {
+        var reviews = webTestClient.get()
+                .uri(BASE_URL + "/my/export")
+                .header(ReviewController.USER_HEADER, USER_NAME)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(ReviewResponse.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertThat(reviews)
+                .map(ReviewResponse::getCreatedAt)
+                .isEqualTo(List.of(REVIEW_DATE_MENU_4, REVIEW_DATE_MENU_5, REVIEW_DATE_MENU_6,
+                        REVIEW_DATE_MENU_7, REVIEW_DATE_MENU_8));
+    }
+
+    @Test
+    void exportReviewsOfMenu_returnsBadRequest_whenMenuIdIsNotPositive() {
+        webTestClient.get()
+                .uri(BASE_URL + "/menu-item/0/export")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    private List<ReviewResponse> readAllMenuTenPagesByCursor(String sortBy) {
+        List<ReviewResponse> reviews = new ArrayList<>();
+        String cursor = null;
+        do {
+            var uri = BASE_URL + "/menu-item/" + MENU_TEN + "?size=2&sortBy=" + sortBy
+                    + (cursor == null ? "" : "&cursor=" + cursor);
+            var result = webTestClient.get()
+                    .uri(uri)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(RatedReviewsResponse.class)
+                    .returnResult();
+            reviews.addAll(result.getResponseBody().getReviews());
+            cursor = result.getResponseHeaders().getFirst(ReviewController.NEXT_CURSOR_HEADER);
+        } while (cursor != null);
+        return reviews;
+    }
+
+    private RatingChangesResponse getRatingChanges(String cursor, int size) {
+        return webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path(BASE_URL + "/ratings/changes")
+                        .queryParam("size", size)
+                        .queryParamIfPresent("cursor", Optional.ofNullable(cursor))
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(RatingChangesResponse.class)
+                .returnResult()
+                .getResponseBody();
+    }
+}
@@ -0,0 +1,43 @@
+package ru.javaops.cloudjava.reviewservice.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import ru.javaops.cloudjava.reviewservice.BaseIntegrationTest;
+import ru.javaops.cloudjava.reviewservice.dto.ReviewResponse;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestConstants.BASE_URL;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestConstants.MENU_ONE;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = "spring.threads.virtual.enabled=true")
+class VirtualThreadsModeTest extends BaseIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter;
+
+    @Test
+    void getReview_isServedThroughConcurrencyLimit_whenVirtualThreadsAreEnabled() {
+        var reviewId = getReviewIdByMenuId(MENU_ONE);
+
+        WebTestClient.bindToServer()
+                .baseUrl("http://localhost:" + port)
+                .build()
+                .get()
+                .uri(BASE_URL + "/" + reviewId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(ReviewResponse.class)
+                .value(response -> assertThat(response.getMenuId()).isEqualTo(MENU_ONE));
+
+        assertThat(concurrencyLimitFilter.getUrlPatterns()).containsExactly("/v1/*");
+        assertThat(concurrencyLimitFilter.getFilter().availablePermits()).isEqualTo(24);
+    }
+}
@@ -0,0 +1,91 @@
+package ru.javaops.cloudjava.reviewservice.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import ru.javaops.cloudjava.reviewservice.BaseIntegrationTest;
+import ru.javaops.cloudjava.reviewservice.service.ReviewService;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static ru.javaops.cloudjava.reviewservice.metrics.OperationMetricsAspect.REPOSITORY_TIMER;
+import static ru.javaops.cloudjava.reviewservice.metrics.OperationMetricsAspect.SERVICE_TIMER;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestConstants.MENU_ONE;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestConstants.MENU_UNKNOWN;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestConstants.USER_ONE;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestData.createReviewRequest;
+
+@AutoConfigureObservability
+@AutoConfigureMockMvc
+class OperationMetricsAspectTest extends BaseIntegrationTest {
+
+    @Autowired
+    private ReviewService reviewService;
+    @Autowired
+    private MeterRegistry registry;
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    void createReview_recordsServiceAndRepositoryTimers() {
+        long service = count(SERVICE_TIMER, "ReviewService.createReview", "success");
+        long insert = count(REPOSITORY_TIMER, "ReviewRepository.insertSkippingConflict", "success");
+        long upsert = count(REPOSITORY_TIMER, "RatingRepository.upsertRating", "success");
+
+        reviewService.createReview(createReviewRequest(MENU_ONE, 4), "Alex");
+
+        assertThat(count(SERVICE_TIMER, "ReviewService.createReview", "success")).isEqualTo(service + 1);
+        assertThat(count(REPOSITORY_TIMER, "ReviewRepository.insertSkippingConflict", "success")).isEqualTo(insert + 1);
+        assertThat(count(REPOSITORY_TIMER, "RatingRepository.upsertRating", "success")).isEqualTo(upsert + 1);
+    }
+
+    @Test
+    void createReview_recordsConflictOutcome_whenReviewAlreadyExists() {
+        long service = count(SERVICE_TIMER, "ReviewService.createReview", "conflict");
+        long upsert = count(REPOSITORY_TIMER, "RatingRepository.upsertRating", "success");
+
+        assertThat(reviewService.createReview(createReviewRequest(MENU_ONE, 4), USER_ONE)).isEmpty();
+
+        assertThat(count(SERVICE_TIMER, "ReviewService.createReview", "conflict")).isEqualTo(service + 1);
+        assertThat(registry.get(SERVICE_TIMER)
+                .tags("operation", "ReviewService.createReview", "outcome", "conflict")
+                .timer().getId().getTag("exception"))
+                .isEqualTo("none");
+        assertThat(count(REPOSITORY_TIMER, "RatingRepository.upsertRating", "success")).isEqualTo(upsert);
+    }
+
+    @Test
+    void emptyOptional_recordsSuccessOutcome_whenMethodIsNotAnnotated() {
+        long success = count(REPOSITORY_TIMER, "RatingRepository.findByMenuId", "success");
+
+        assertThat(ratingRepository.findByMenuId(MENU_UNKNOWN)).isEmpty();
+
+        assertThat(count(REPOSITORY_TIMER, "RatingRepository.findByMenuId", "success")).isEqualTo(success + 1);
+        assertThat(count(REPOSITORY_TIMER, "RatingRepository.findByMenuId", "conflict")).isZero();
+    }
+
+    @Test
+    void prometheusEndpoint_exposesHistogramsOfOperationsAndPoolWait() {
+        reviewService.getReview(getReviewIdByMenuId(MENU_ONE));
+
+        webTestClient.get()
+                .uri("/actuator/prometheus")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .value(body -> assertThat(body)
+                        .contains("app_service_seconds_bucket{exception=\"none\",operation=\"ReviewService.getReview\",outcome=\"success\"")
+                        .contains("app_repository_seconds_bucket")
+                        .contains("hikaricp_connections_acquire_seconds_bucket"));
+    }
+
+    private long count(String timerName, String operation, String outcome) {
+        Timer timer = registry.find(timerName)
+                .tags("operation", operation, "outcome", outcome)
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
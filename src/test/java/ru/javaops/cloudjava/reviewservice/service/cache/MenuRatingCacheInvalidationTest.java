@@ -0,0 +1,60 @@
+package ru.javaops.cloudjava.reviewservice.service.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import ru.javaops.cloudjava.reviewservice.BaseIntegrationTest;
+import ru.javaops.cloudjava.reviewservice.service.RatingService;
+import ru.javaops.cloudjava.reviewservice.storage.model.Rating;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static ru.javaops.cloudjava.reviewservice.storage.model.Rating.newRating;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestConstants.MENU_ONE;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestConstants.MENU_UNKNOWN;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestData.ratingMenuOne;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestUtils.compareMenuInfo;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestUtils.incrementExpectedRating;
+
+@TestPropertySource(properties = "app.rating.cache.enabled=true")
+class MenuRatingCacheInvalidationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private RatingService ratingService;
+    @Autowired
+    private MenuRatingCache cache;
+
+    @BeforeEach
+    void clearCache() {
+        cache.invalidateAll();
+    }
+
+    @Test
+    void getRatingOfMenu_servesSecondReadFromCache() {
+        ratingService.getRatingOfMenu(MENU_ONE);
+        long hits = cache.hitCount();
+
+        compareMenuInfo(ratingMenuOne(), ratingService.getRatingOfMenu(MENU_ONE));
+        assertThat(cache.hitCount()).isEqualTo(hits + 1);
+    }
+
+    @Test
+    void saveRating_invalidatesCachedRating() {
+        ratingService.getRatingOfMenu(MENU_ONE);
+
+        ratingService.saveRating(MENU_ONE, 3);
+
+        Rating expected = ratingMenuOne();
+        incrementExpectedRating(expected, 0, 0, 1, 0, 0);
+        compareMenuInfo(expected, ratingService.getRatingOfMenu(MENU_ONE));
+    }
+
+    @Test
+    void saveRating_invalidatesCachedDefaultRating_whenMenuHadNoRatingBefore() {
+        compareDefaultMenuInfo(MENU_UNKNOWN, ratingService.getRatingOfMenu(MENU_UNKNOWN));
+
+        ratingService.saveRating(MENU_UNKNOWN, 5);
+
+        compareMenuInfo(newRating(MENU_UNKNOWN, 0, 0, 0, 0, 1), ratingService.getRatingOfMenu(MENU_UNKNOWN));
+    }
+}
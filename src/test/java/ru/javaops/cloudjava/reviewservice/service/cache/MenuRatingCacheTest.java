@@ -0,0 +1,114 @@
+package ru.javaops.cloudjava.reviewservice.service.cache;
+
+import org.junit.jupiter.api.Test;
+import ru.javaops.cloudjava.reviewservice.storage.model.MenuRatingInfo;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+
+class MenuRatingCacheTest {
+
+    @Test
+    void get_returnsCachedValue_andCountsHitsAndMisses() {
+        var cache = new MenuRatingCache(100, Duration.ofMinutes(1));
+        assertThat(cache.get(1L)).isNull();
+
+        var rating = rating(1L);
+        cache.putIfNotInvalidated(1L, rating, cache.stamp(1L));
+
+        assertThat(cache.get(1L)).isSameAs(rating);
+        assertThat(cache.hitCount()).isEqualTo(1);
+        assertThat(cache.missCount()).isEqualTo(1);
+        assertThat(cache.putCount()).isEqualTo(1);
+    }
+
+    @Test
+    void putIfNotInvalidated_skipsValue_whenKeyWasInvalidatedDuringLoad() {
+        var cache = new MenuRatingCache(100, Duration.ofMinutes(1));
+        long stamp = cache.stamp(1L);
+        cache.invalidate(1L);
+
+        cache.putIfNotInvalidated(1L, rating(1L), stamp);
+
+        assertThat(cache.get(1L)).isNull();
+    }
+
+    @Test
+    void get_evictsExpiredValue() {
+        var cache = new MenuRatingCache(100, Duration.ZERO);
+        cache.putIfNotInvalidated(1L, rating(1L), cache.stamp(1L));
+
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.evictionCount()).isEqualTo(1);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void put_keepsSizeBounded_andKeepsRemainingKeysReachable() {
+        int maximumSize = 64;
+        var cache = new MenuRatingCache(maximumSize, Duration.ofMinutes(1));
+        for (long menuId = 1; menuId <= 10_000; menuId++) {
+            cache.putIfNotInvalidated(menuId, rating(menuId), cache.stamp(menuId));
+        }
+
+        assertThat(cache.size()).isLessThanOrEqualTo(maximumSize);
+        assertThat(cache.evictionCount()).isEqualTo(10_000 - cache.size());
+        long found = 0;
+        for (long menuId = 1; menuId <= 10_000; menuId++) {
+            var cached = cache.get(menuId);
+            if (cached != null) {
+                assertThat(cached.getMenuId()).isEqualTo(menuId);
+                found++;
+            }
+        }
+        assertThat(found).isEqualTo(cache.size());
+    }
+
+    @Test
+    void get_returnsOwnValueOfEachKey_whileOtherThreadsReadAndEvict() throws Exception {
+        var cache = new MenuRatingCache(64, Duration.ofMinutes(1));
+        int threads = 8;
+        var executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(executor.submit(() -> {
+                    var random = ThreadLocalRandom.current();
+                    for (int i = 0; i < 100_000; i++) {
+                        long menuId = random.nextLong(1, 200);
+                        var cached = cache.get(menuId);
+                        if (cached == null) {
+                            cache.putIfNotInvalidated(menuId, rating(menuId), cache.stamp(menuId));
+                        } else {
+                            assertThat(cached.getMenuId()).isEqualTo(menuId);
+                        }
+                    }
+                }));
+            }
+            for (var worker : workers) {
+                worker.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(cache.size()).isLessThanOrEqualTo(64);
+    }
+
+    @Test
+    void get_returnsNothing_whenCacheIsDisabled() {
+        var cache = new MenuRatingCache(0, Duration.ofMinutes(1));
+        cache.putIfNotInvalidated(1L, rating(1L), cache.stamp(1L));
+        assertThat(cache.get(1L)).isNull();
+    }
+
+    private static MenuRatingInfo rating(Long menuId) {
+        return new MenuRatingInfo(menuId, 0.5f, 4.0f);
+    }
+}
@@ -3,6 +3,9 @@ package ru.javaops.cloudjava.reviewservice.service.impl;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import ru.javaops.cloudjava.reviewservice.BaseIntegrationTest;
+import ru.javaops.cloudjava.reviewservice.dto.BatchReviewResult;
+import ru.javaops.cloudjava.reviewservice.dto.CreateReviewsBatchRequest;
+import ru.javaops.cloudjava.reviewservice.dto.CreateReviewsBatchResponse;
 import ru.javaops.cloudjava.reviewservice.dto.RatedReviewsResponse;
 import ru.javaops.cloudjava.reviewservice.dto.ReviewResponse;
 import ru.javaops.cloudjava.reviewservice.dto.SortBy;
@@ -15,9 +18,13 @@ import java.util.List;
 
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static ru.javaops.cloudjava.reviewservice.dto.BatchItemStatus.CREATED;
+import static ru.javaops.cloudjava.reviewservice.dto.BatchItemStatus.DUPLICATE;
 import static ru.javaops.cloudjava.reviewservice.testutil.TestConstants.*;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestData.batchReviewItem;
 import static ru.javaops.cloudjava.reviewservice.testutil.TestData.createReviewRequest;
 import static ru.javaops.cloudjava.reviewservice.testutil.TestData.ratingMenuTen;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestUtils.assertRatesEqual;
 import static ru.javaops.cloudjava.reviewservice.testutil.TestUtils.compareMenuInfo;
 
 class ReviewServiceImplTest extends BaseIntegrationTest {
@@ -99,16 +106,19 @@ class ReviewServiceImplTest extends BaseIntegrationTest {
     }
 
     @Test
-    void createReview_throwsWhenUserAlreadyPlacedReviewForMenu() {
+    void createReview_returnsEmptyAndKeepsRatingWhenUserAlreadyPlacedReviewForMenu() {
         var request = createReviewRequest(MENU_ONE, 5);
-        assertThrows(ReviewServiceException.class,
-                () -> reviewService.createReview(request, "UserOne"));
+        var ratingBefore = ratingRepository.findByMenuId(MENU_ONE).get();
+
+        assertThat(reviewService.createReview(request, "UserOne")).isEmpty();
+
+        assertRatesEqual(ratingRepository.findByMenuId(MENU_ONE).get(), ratingBefore);
     }
 
     @Test
     void createReview_createsReviewAddsRatingWhenMenuHadNoRating() {
         var request = createReviewRequest(1000L, 5);
-        ReviewResponse response = reviewService.createReview(request, "Alex");
+        ReviewResponse response = reviewService.createReview(request, "Alex").orElseThrow();
         assertThat(response.getRate()).isEqualTo(request.getRate());
         assertThat(response.getMenuId()).isEqualTo(request.getMenuId());
         assertThat(response.getId()).isNotNull();
@@ -123,7 +133,7 @@ class ReviewServiceImplTest extends BaseIntegrationTest {
     void createReview_createsReviewIncreasesRatingWhenMenuAlreadyHasRating() {
         var request = createReviewRequest(MENU_ONE, 5);
 
-        ReviewResponse response = reviewService.createReview(request, "Alex");
+        ReviewResponse response = reviewService.createReview(request, "Alex").orElseThrow();
         assertThat(response.getRate()).isEqualTo(request.getRate());
         assertThat(response.getMenuId()).isEqualTo(request.getMenuId());
         assertThat(response.getId()).isNotNull();
@@ -133,4 +143,39 @@ class ReviewServiceImplTest extends BaseIntegrationTest {
         Rating rating = ratingRepository.findByMenuId(request.getMenuId()).get();
         assertThat(rating.getRateFive()).isEqualTo(2);
     }
+
+    @Test
+    void createReviews_createsNewReviewsReportsDuplicatesAndAggregatesRatings() {
+        var request = CreateReviewsBatchRequest.builder()
+                .reviews(List.of(
+                        batchReviewItem(MENU_ONE, "Alex", 4),
+                        batchReviewItem(MENU_ONE, USER_ONE, 1),
+                        batchReviewItem(MENU_ONE, "Bob", 4),
+                        batchReviewItem(MENU_ONE, "Alex", 2),
+                        batchReviewItem(1000L, "Alex", 3)))
+                .build();
+
+        CreateReviewsBatchResponse response = reviewService.createReviews(request);
+
+        assertThat(response.getCreated()).isEqualTo(3);
+        assertThat(response.getDuplicates()).isEqualTo(2);
+        assertThat(response.getResults())
+                .map(BatchReviewResult::getStatus)
+                .containsExactly(CREATED, DUPLICATE, CREATED, DUPLICATE, CREATED);
+        assertThat(response.getResults())
+                .map(BatchReviewResult::getIndex)
+                .containsExactly(0, 1, 2, 3, 4);
+        var alexReview = response.getResults().get(0).getReview();
+        assertThat(alexReview.getId()).isNotNull();
+        assertThat(alexReview.getCreatedBy()).isEqualTo("Alex");
+        assertThat(alexReview.getRate()).isEqualTo(4);
+        assertThat(response.getResults().get(1).getReview()).isNull();
+
+        Rating ratingMenuOne = ratingRepository.findByMenuId(MENU_ONE).get();
+        assertThat(ratingMenuOne.getRateFour()).isEqualTo(2);
+        assertThat(ratingMenuOne.getRateOne()).isZero();
+        assertThat(ratingMenuOne.getRateTwo()).isZero();
+        Rating newRating = ratingRepository.findByMenuId(1000L).get();
+        assertThat(newRating.getRateThree()).isEqualTo(1);
+    }
 }
\ No newline at end of file
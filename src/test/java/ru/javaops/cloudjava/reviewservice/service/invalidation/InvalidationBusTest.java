@@ -0,0 +1,124 @@
+package ru.javaops.cloudjava.reviewservice.service.invalidation;
+
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import ru.javaops.cloudjava.reviewservice.BaseIntegrationTest;
+import ru.javaops.cloudjava.reviewservice.service.RatingService;
+import ru.javaops.cloudjava.reviewservice.service.cache.MenuRatingCache;
+import ru.javaops.cloudjava.reviewservice.storage.model.MenuRatingInfo;
+
+import java.sql.DriverManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestConstants.MENU_ONE;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestConstants.MENU_TWO;
+
+@TestPropertySource(properties = {
+        "app.invalidation.enabled=true",
+        // отправляем уведомления в тестах вручную
+        "app.invalidation.flush-interval-ms=3600000",
+        "app.invalidation.poll-timeout=100ms",
+        "app.rating.cache.enabled=true"
+})
+class InvalidationBusTest extends BaseIntegrationTest {
+
+    @Autowired
+    private InvalidationPublisher publisher;
+    @Autowired
+    private InvalidationListener listener;
+    @Autowired
+    private MenuRatingCache cache;
+    @Autowired
+    private RatingService ratingService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private JdbcConnectionDetails connectionDetails;
+
+    @Test
+    void flush_sendsChangesOfSeveralTransactionsInOneNotification() throws Exception {
+        try (var connection = DriverManager.getConnection(connectionDetails.getJdbcUrl(),
+                connectionDetails.getUsername(), connectionDetails.getPassword())) {
+            try (var statement = connection.createStatement()) {
+                statement.execute("LISTEN " + InvalidationPublisher.CHANNEL);
+            }
+            ratingService.saveRating(MENU_ONE, 5);
+            ratingService.saveRating(MENU_ONE, 4);
+            ratingService.saveRating(MENU_TWO, 3);
+
+            publisher.flush();
+
+            List<InvalidationMessage> messages = new ArrayList<>();
+            var pgConnection = connection.unwrap(PGConnection.class);
+            PGNotification[] notifications = pgConnection.getNotifications(5_000);
+            for (PGNotification notification : notifications) {
+                messages.add(InvalidationMessage.decode(notification.getParameter()));
+            }
+            assertThat(messages).singleElement().satisfies(message -> {
+                assertThat(message.instanceId()).isEqualTo(publisher.instanceId());
+                assertThat(message.ratingMenuIds()).containsExactlyInAnyOrder(MENU_ONE, MENU_TWO);
+            });
+        }
+    }
+
+    @Test
+    void notificationOfAnotherInstance_invalidatesCachedRating_andOwnNotificationIsIgnored() throws Exception {
+        awaitListening();
+        cacheRating(MENU_ONE);
+        cacheRating(MENU_TWO);
+
+        notify(publisher.instanceId() + "|" + MENU_TWO);
+        notify("another-instance|" + MENU_ONE);
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (cache.get(MENU_ONE) != null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(cache.get(MENU_ONE)).isNull();
+        assertThat(cache.get(MENU_TWO)).isNotNull();
+    }
+
+    @Test
+    void encode_splitsLargeChangesIntoPayloadsWithinLimit() {
+        var ratings = LongStream.rangeClosed(1_000_000, 1_003_000).boxed().toList();
+
+        var payloads = InvalidationMessage.encode("instance", ratings, InvalidationMessage.MAX_PAYLOAD_LENGTH);
+
+        assertThat(payloads).hasSizeGreaterThan(1)
+                .allSatisfy(payload -> assertThat(payload.length()).isLessThanOrEqualTo(InvalidationMessage.MAX_PAYLOAD_LENGTH));
+        var decoded = payloads.stream().map(InvalidationMessage::decode).toList();
+        assertThat(decoded).allSatisfy(message -> assertThat(message.instanceId()).isEqualTo("instance"));
+        assertThat(decoded.stream().flatMap(message -> message.ratingMenuIds().stream()))
+                .containsExactlyElementsOf(ratings);
+        assertThat(InvalidationMessage.decode("instance|").ratingMenuIds()).isEmpty();
+        assertThat(Set.copyOf(InvalidationMessage.decode("instance|1,2").ratingMenuIds())).isEqualTo(Set.of(1L, 2L));
+    }
+
+    private void notify(String payload) {
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> {
+        }, InvalidationPublisher.CHANNEL, payload);
+    }
+
+    private void cacheRating(Long menuId) {
+        var rating = MenuRatingInfo.builder().menuId(menuId).wilsonScore(0.0f).avgStars(0.0f).build();
+        cache.putIfNotInvalidated(menuId, rating, cache.stamp(menuId));
+        assertThat(cache.get(menuId)).isNotNull();
+    }
+
+    private void awaitListening() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!listener.isListening() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(listener.isListening()).isTrue();
+    }
+}
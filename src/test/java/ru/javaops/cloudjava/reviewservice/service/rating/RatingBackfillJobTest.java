@@ -0,0 +1,110 @@
+package ru.javaops.cloudjava.reviewservice.service.rating;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import ru.javaops.cloudjava.reviewservice.BaseIntegrationTest;
+import ru.javaops.cloudjava.reviewservice.dto.RatingBackfillState;
+import ru.javaops.cloudjava.reviewservice.service.ReviewService;
+import ru.javaops.cloudjava.reviewservice.storage.model.Rating;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static ru.javaops.cloudjava.reviewservice.storage.model.Rating.newRating;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestConstants.MENU_ONE;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestConstants.MENU_TEN;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestConstants.MENU_UNKNOWN;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestData.createReviewRequest;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestData.ratingMenuTen;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestUtils.assertRatesEqual;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestUtils.compareMenuInfo;
+
+@TestPropertySource(properties = {
+        // маленькие отрезки, чтобы пересчет шел в несколько потоков
+        "app.rating.backfill.chunk-size=2",
+        "app.rating.backfill.parallelism=3"
+})
+class RatingBackfillJobTest extends BaseIntegrationTest {
+
+    private static final String REVIEW_COUNTS_SQL = """
+            SELECT menu_id,
+                   count(*) FILTER (WHERE rate = 1) AS one,
+                   count(*) FILTER (WHERE rate = 2) AS two,
+                   count(*) FILTER (WHERE rate = 3) AS three,
+                   count(*) FILTER (WHERE rate = 4) AS four,
+                   count(*) FILTER (WHERE rate = 5) AS five
+            FROM reviews
+            GROUP BY menu_id
+            """;
+
+    @Autowired
+    private RatingBackfillJob backfillJob;
+    @Autowired
+    private ReviewService reviewService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void start_correctsRatingsThatDriftedFromReviews() throws Exception {
+        jdbcTemplate.update("UPDATE ratings SET rate_five = 10, wilson_score = 0 WHERE menu_id = ?", MENU_ONE);
+        jdbcTemplate.update("DELETE FROM ratings WHERE menu_id = ?", MENU_TEN);
+        jdbcTemplate.update("INSERT INTO ratings(menu_id, rate_three) VALUES (?, 7)", MENU_UNKNOWN);
+
+        var status = backfillJob.start().get(30, TimeUnit.SECONDS);
+
+        assertThat(status.getState()).isEqualTo(RatingBackfillState.COMPLETED);
+        assertThat(status.getChunksDone()).isEqualTo(status.getChunksTotal());
+        assertThat(status.getReviewsScanned()).isEqualTo(11);
+        assertThat(status.getRatingsCorrected()).isEqualTo(3);
+
+        Rating expectedMenuOne = newRating(MENU_ONE, 0, 0, 0, 0, 1);
+        assertRatesEqual(ratingRepository.findByMenuId(MENU_ONE).get(), expectedMenuOne);
+        compareMenuInfo(expectedMenuOne, ratingRepository.findRatingInfoByMenuId(MENU_ONE).get());
+        assertRatesEqual(ratingRepository.findByMenuId(MENU_TEN).get(), ratingMenuTen());
+        compareMenuInfo(ratingMenuTen(), ratingRepository.findRatingInfoByMenuId(MENU_TEN).get());
+        assertRatesEqual(ratingRepository.findByMenuId(MENU_UNKNOWN).get(), newRating(MENU_UNKNOWN, 0, 0, 0, 0, 0));
+        compareDefaultMenuInfo(MENU_UNKNOWN, ratingRepository.findRatingInfoByMenuId(MENU_UNKNOWN).get());
+    }
+
+    @Test
+    void start_keepsRatingsConsistent_whenReviewsAreCreatedConcurrently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Callable<Void>> writers = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            final long menuId = 1 + i % 12;
+            final int rate = 1 + i % 5;
+            final String username = "Backfill" + i;
+            writers.add(() -> {
+                reviewService.createReview(createReviewRequest(menuId, rate), username);
+                return null;
+            });
+        }
+        var writes = writers.stream().map(executor::submit).toList();
+        var status = backfillJob.start().get(30, TimeUnit.SECONDS);
+        for (var write : writes) {
+            write.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(status.getState()).isEqualTo(RatingBackfillState.COMPLETED);
+        for (Map<String, Object> counts : jdbcTemplate.queryForList(REVIEW_COUNTS_SQL)) {
+            long menuId = ((Number) counts.get("menu_id")).longValue();
+            Rating expected = newRating(menuId,
+                    ((Number) counts.get("one")).intValue(),
+                    ((Number) counts.get("two")).intValue(),
+                    ((Number) counts.get("three")).intValue(),
+                    ((Number) counts.get("four")).intValue(),
+                    ((Number) counts.get("five")).intValue());
+            assertRatesEqual(ratingRepository.findByMenuId(menuId).get(), expected);
+            compareMenuInfo(expected, ratingRepository.findRatingInfoByMenuId(menuId).get());
+        }
+    }
+}
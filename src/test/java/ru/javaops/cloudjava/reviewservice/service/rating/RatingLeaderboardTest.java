@@ -0,0 +1,79 @@
+package ru.javaops.cloudjava.reviewservice.service.rating;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import ru.javaops.cloudjava.reviewservice.BaseIntegrationTest;
+import ru.javaops.cloudjava.reviewservice.dto.RankedMenuRating;
+import ru.javaops.cloudjava.reviewservice.service.RatingService;
+import ru.javaops.cloudjava.reviewservice.storage.model.MenuRatingInfo;
+
+import static org.assertj.core.api.Assertions.tuple;
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestConstants.*;
+
+class RatingLeaderboardTest extends BaseIntegrationTest {
+
+    @Autowired
+    private RatingLeaderboard leaderboard;
+    @Autowired
+    private RatingService ratingService;
+
+    @BeforeEach
+    void rebuildFromTestData() {
+        leaderboard.rebuild();
+    }
+
+    @Test
+    void rebuild_ranksRatedMenusByWilsonScore() {
+        // у блюд 2 и 3 нет оценок
+        assertThat(leaderboard.size()).isEqualTo(7);
+        assertThat(leaderboard.getTop(0, 10))
+                .map(RankedMenuRating::getMenuId)
+                .containsExactly(MENU_ONE, MENU_FOUR, MENU_TEN, MENU_FIVE, MENU_SIX, MENU_SEVEN, MENU_EIGHT);
+    }
+
+    @Test
+    void getTop_returnsPageByRank() {
+        assertThat(leaderboard.getTop(1, 3))
+                .extracting(RankedMenuRating::getRank, RankedMenuRating::getMenuId)
+                .containsExactly(
+                        tuple(4L, MENU_FIVE),
+                        tuple(5L, MENU_SIX),
+                        tuple(6L, MENU_SEVEN));
+        assertThat(leaderboard.getTop(3, 3)).isEmpty();
+    }
+
+    @Test
+    void saveRating_updatesRankOfMenu() {
+        ratingService.saveRating(MENU_UNKNOWN, 5);
+
+        // равный рейтинг: блюда упорядочены по идентификатору
+        assertThat(leaderboard.getTop(0, 3))
+                .map(RankedMenuRating::getMenuId)
+                .containsExactly(MENU_ONE, MENU_FOUR, MENU_UNKNOWN);
+
+        ratingService.saveRating(MENU_UNKNOWN, 5);
+
+        var top = leaderboard.getTop(0, 1).get(0);
+        assertThat(top.getMenuId()).isEqualTo(MENU_UNKNOWN);
+        assertThat(top.getWilsonScore()).isEqualTo(ratingRepository.findRatingInfoByMenuId(MENU_UNKNOWN).get().getWilsonScore());
+        assertThat(leaderboard.size()).isEqualTo(8);
+    }
+
+    @Test
+    void update_ignoresReadThatStartedBeforeAlreadyAppliedOne() {
+        long stale = leaderboard.nextRead();
+        long fresh = leaderboard.nextRead();
+
+        // результат более позднего чтения применен первым
+        leaderboard.update(new MenuRatingInfo(MENU_UNKNOWN, 0.9f, 5.0f), fresh);
+        leaderboard.update(new MenuRatingInfo(MENU_UNKNOWN, 0.1f, 1.0f), stale);
+
+        assertThat(leaderboard.getTop(0, 10))
+                .filteredOn(rating -> rating.getMenuId().equals(MENU_UNKNOWN))
+                .extracting(RankedMenuRating::getWilsonScore, RankedMenuRating::getAvgStars)
+                .containsExactly(tuple(0.9f, 5.0f));
+        assertThat(leaderboard.size()).isEqualTo(8);
+    }
+}
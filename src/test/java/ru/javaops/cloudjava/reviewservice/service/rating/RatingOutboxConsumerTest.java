@@ -0,0 +1,87 @@
+package ru.javaops.cloudjava.reviewservice.service.rating;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import ru.javaops.cloudjava.reviewservice.BaseIntegrationTest;
+import ru.javaops.cloudjava.reviewservice.service.RatingService;
+import ru.javaops.cloudjava.reviewservice.storage.model.Rating;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static ru.javaops.cloudjava.reviewservice.storage.model.Rating.newRating;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestConstants.MENU_ONE;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestConstants.MENU_UNKNOWN;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestData.ratingMenuOne;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestUtils.assertRatesEqual;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestUtils.compareMenuInfo;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestUtils.incrementExpectedRating;
+
+@TestPropertySource(properties = {
+        "app.rating.update-mode=outbox",
+        // применяем оценки в тестах вручную
+        "app.rating.outbox.poll-interval-ms=3600000",
+        "app.rating.outbox.batch-size=7"
+})
+class RatingOutboxConsumerTest extends BaseIntegrationTest {
+
+    @Autowired
+    private RatingService ratingService;
+    @Autowired
+    private RatingOutboxConsumer consumer;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void drain_appliesRatingsFromOutbox() {
+        for (int i = 0; i < 20; i++) {
+            ratingService.saveRating(MENU_ONE, i % 5 + 1);
+        }
+
+        Rating expectedRating = ratingMenuOne();
+        assertRatesEqual(ratingRepository.findByMenuId(MENU_ONE).get(), expectedRating);
+        assertThat(ratingRepository.findOutboxBacklog().pending()).isEqualTo(20);
+
+        consumer.drain();
+
+        incrementExpectedRating(expectedRating, 4, 4, 4, 4, 4);
+        assertRatesEqual(ratingRepository.findByMenuId(MENU_ONE).get(), expectedRating);
+        compareMenuInfo(expectedRating, ratingRepository.findRatingInfoByMenuId(MENU_ONE).get());
+        assertThat(consumer.backlog().pending()).isZero();
+        assertThat(meterRegistry.get(RatingOutboxConsumer.LAG_TIMER).timer().count()).isGreaterThanOrEqualTo(20);
+        assertThat(meterRegistry.get(RatingOutboxConsumer.FAILURES_COUNTER).counter().count()).isZero();
+    }
+
+    @Test
+    void drainBatch_appliesEachRatingOnce_whenDrainedConcurrently() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            ratingService.saveRating(MENU_UNKNOWN, i % 5 + 1);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Callable<Void>> drainers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            drainers.add(() -> {
+                int drained;
+                do {
+                    drained = consumer.drainBatch();
+                } while (drained > 0);
+                return null;
+            });
+        }
+        for (var future : executor.invokeAll(drainers)) {
+            future.get();
+        }
+        executor.shutdown();
+
+        Rating expectedRating = newRating(MENU_UNKNOWN, 20, 20, 20, 20, 20);
+        assertRatesEqual(ratingRepository.findByMenuId(MENU_UNKNOWN).get(), expectedRating);
+        assertThat(ratingRepository.findOutboxBacklog().pending()).isZero();
+    }
+}
@@ -0,0 +1,126 @@
+package ru.javaops.cloudjava.reviewservice.service.rating;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import ru.javaops.cloudjava.reviewservice.BaseIntegrationTest;
+import ru.javaops.cloudjava.reviewservice.service.RatingService;
+import ru.javaops.cloudjava.reviewservice.storage.model.MenuRatingInfo;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestConstants.MENU_ONE;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestConstants.MENU_TEN;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestConstants.MENU_TWO;
+
+@TestPropertySource(properties = {
+        // рассылаем изменения в тестах вручную
+        "app.rating.stream.interval-ms=3600000",
+        "app.rating.stream.max-pending-updates=2"
+})
+class RatingStreamPublisherTest extends BaseIntegrationTest {
+
+    @Autowired
+    private RatingStreamPublisher publisher;
+    @Autowired
+    private RatingService ratingService;
+
+    @Test
+    void publish_coalescesRatingsOfMenuIntoOneUpdate() throws Exception {
+        List<List<MenuRatingInfo>> updates = new CopyOnWriteArrayList<>();
+        var unsubscribe = publisher.subscribe(Set.of(MENU_ONE, MENU_TWO), updates::add, () -> {
+        });
+        try {
+            for (int i = 0; i < 10; i++) {
+                ratingService.saveRating(MENU_ONE, 5);
+            }
+            ratingService.saveRating(MENU_TEN, 1);
+
+            publisher.publish();
+            publisher.publish();
+
+            await(() -> !updates.isEmpty());
+            assertThat(updates).hasSize(1);
+            assertThat(updates.get(0))
+                    .singleElement()
+                    .satisfies(rating -> {
+                        assertThat(rating.getMenuId()).isEqualTo(MENU_ONE);
+                        assertThat(rating.getAvgStars())
+                                .isEqualTo(ratingRepository.findRatingInfoByMenuId(MENU_ONE).get().getAvgStars());
+                    });
+        } finally {
+            unsubscribe.run();
+        }
+    }
+
+    @Test
+    void publish_stopsDelivering_afterUnsubscribeOrListenerFailure() throws Exception {
+        List<List<MenuRatingInfo>> updates = new CopyOnWriteArrayList<>();
+        int subscribers = publisher.subscriberCount();
+        var unsubscribe = publisher.subscribe(Set.of(MENU_ONE), updates::add, () -> {
+        });
+        publisher.subscribe(Set.of(MENU_ONE), ratings -> {
+            throw new IllegalStateException("Client disconnected");
+        }, () -> {
+        });
+        assertThat(publisher.subscriberCount()).isEqualTo(subscribers + 2);
+
+        ratingService.saveRating(MENU_ONE, 4);
+        publisher.publish();
+        await(() -> updates.size() == 1 && publisher.subscriberCount() == subscribers + 1);
+        assertThat(updates).hasSize(1);
+        assertThat(publisher.subscriberCount()).isEqualTo(subscribers + 1);
+
+        unsubscribe.run();
+        ratingService.saveRating(MENU_ONE, 4);
+        publisher.publish();
+        Thread.sleep(100);
+        assertThat(updates).hasSize(1);
+        assertThat(publisher.subscriberCount()).isEqualTo(subscribers);
+    }
+
+    @Test
+    void publish_doesNotWaitForSlowSubscriber_andDropsItWhenQueueOverflows() throws Exception {
+        var release = new CountDownLatch(1);
+        var overflowed = new CountDownLatch(1);
+        List<List<MenuRatingInfo>> updates = new CopyOnWriteArrayList<>();
+        int subscribers = publisher.subscriberCount();
+        var unsubscribe = publisher.subscribe(Set.of(MENU_ONE), updates::add, () -> {
+        });
+        publisher.subscribe(Set.of(MENU_ONE), ratings -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, overflowed::countDown);
+        try {
+            // первое обновление занимает обработчик медленного подписчика, следующие два заполняют его очередь
+            for (int i = 0; i < 4; i++) {
+                ratingService.saveRating(MENU_ONE, 5);
+                publisher.publish();
+                int delivered = i + 1;
+                await(() -> updates.size() == delivered);
+            }
+
+            assertThat(overflowed.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(publisher.subscriberCount()).isEqualTo(subscribers + 1);
+        } finally {
+            release.countDown();
+            unsubscribe.run();
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+}
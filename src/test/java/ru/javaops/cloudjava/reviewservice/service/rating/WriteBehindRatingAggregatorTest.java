@@ -0,0 +1,107 @@
+package ru.javaops.cloudjava.reviewservice.service.rating;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import ru.javaops.cloudjava.reviewservice.BaseIntegrationTest;
+import ru.javaops.cloudjava.reviewservice.service.RatingService;
+import ru.javaops.cloudjava.reviewservice.storage.model.Rating;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static ru.javaops.cloudjava.reviewservice.storage.model.Rating.newRating;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestConstants.MENU_ONE;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestConstants.MENU_UNKNOWN;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestData.ratingMenuOne;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestUtils.assertRatesEqual;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestUtils.compareMenuInfo;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestUtils.incrementExpectedRating;
+
+@TestPropertySource(properties = {
+        "app.rating.update-mode=write-behind",
+        // сбрасываем оценки в тестах вручную
+        "app.rating.write-behind.flush-interval-ms=3600000"
+})
+class WriteBehindRatingAggregatorTest extends BaseIntegrationTest {
+
+    @Autowired
+    private RatingService ratingService;
+    @Autowired
+    private WriteBehindRatingAggregator aggregator;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void saveRating_coalescesConcurrentRatingsUntilFlush() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(12);
+        List<Callable<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            final int rate = (i % 5 == 0) ? 5 : i % 5;
+            workers.add(() -> {
+                ratingService.saveRating(MENU_ONE, rate);
+                return null;
+            });
+        }
+        executor.invokeAll(workers);
+        executor.shutdown();
+
+        Rating expectedRating = ratingMenuOne();
+        assertRatesEqual(ratingRepository.findByMenuId(MENU_ONE).get(), expectedRating);
+
+        aggregator.flush();
+
+        incrementExpectedRating(expectedRating, 20, 20, 20, 20, 20);
+        assertRatesEqual(ratingRepository.findByMenuId(MENU_ONE).get(), expectedRating);
+        compareMenuInfo(expectedRating, ratingRepository.findRatingInfoByMenuId(MENU_ONE).get());
+    }
+
+    @Test
+    void flush_createsRating_whenMenuHadNoRatingBefore() {
+        ratingService.saveRating(MENU_UNKNOWN, 3);
+        ratingService.saveRating(MENU_UNKNOWN, 4);
+
+        aggregator.flush();
+
+        Rating expectedRating = newRating(MENU_UNKNOWN, 0, 0, 1, 1, 0);
+        assertRatesEqual(ratingRepository.findByMenuId(MENU_UNKNOWN).get(), expectedRating);
+    }
+
+    @Test
+    void flush_dropsCountersOfMenu_thatReceivedNoRatingsSincePreviousFlush() {
+        ratingService.saveRating(MENU_UNKNOWN, 3);
+
+        aggregator.flush();
+        assertThat(aggregator.pendingMenus()).isEqualTo(1);
+
+        aggregator.flush();
+        assertThat(aggregator.pendingMenus()).isZero();
+
+        ratingService.saveRating(MENU_UNKNOWN, 4);
+        aggregator.flush();
+
+        Rating expectedRating = newRating(MENU_UNKNOWN, 0, 0, 1, 1, 0);
+        assertRatesEqual(ratingRepository.findByMenuId(MENU_UNKNOWN).get(), expectedRating);
+    }
+
+    @Test
+    void recover_recalculatesRatingsFromReviews_whenReviewsWereNotFlushed() {
+        jdbcTemplate.update("""
+                        INSERT INTO reviews(menu_id, created_by, comment, rate, created_at)
+                        VALUES (?, 'Crashed', 'Comment', 4, ?)
+                        """,
+                MENU_ONE, Timestamp.valueOf(LocalDateTime.now()));
+
+        aggregator.recover();
+
+        Rating expectedRating = newRating(MENU_ONE, 0, 0, 0, 1, 1);
+        assertRatesEqual(ratingRepository.findByMenuId(MENU_ONE).get(), expectedRating);
+    }
+}
@@ -0,0 +1,120 @@
+package ru.javaops.cloudjava.reviewservice.storage.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.javaops.cloudjava.reviewservice.BaseIntegrationTest;
+
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.FutureTask;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+
+// вместо реплики со streaming replication используется второй контейнер Postgres:
+// проверяется выбор сервера, а не репликация. Контейнеры различаются по application_name соединений
+@TestPropertySource(properties = {
+        "app.datasource.replicas.enabled=true",
+        "app.datasource.replicas.urls=jdbc:tc:postgresql:16.1:///test_database?ApplicationName=" + ReplicaDataSourceTest.REPLICA_APPLICATION_NAME,
+        "app.datasource.replicas.read-your-writes-window=1m"
+})
+class ReplicaDataSourceTest extends BaseIntegrationTest {
+    static final String REPLICA_APPLICATION_NAME = "review-service-replica";
+    private static final String APPLICATION_NAME_SQL = "SELECT current_setting('application_name')";
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ReadYourWritesTracker readYourWritesTracker;
+    @Autowired
+    private ReplicaDataSource replicaDataSource;
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private HikariDataSource primaryDataSource;
+
+    @AfterEach
+    void tearDown() {
+        readYourWritesTracker.endRequest();
+    }
+
+    @Test
+    void readOnlyTransaction_runsOnReplica() {
+        assertThat(replicaDataSource.healthyCount()).isEqualTo(1);
+        assertThat(applicationName(true)).isEqualTo(REPLICA_APPLICATION_NAME);
+    }
+
+    @Test
+    void readWriteTransaction_runsOnPrimary() {
+        assertThat(applicationName(false)).isNotEqualTo(REPLICA_APPLICATION_NAME);
+    }
+
+    @Test
+    void readOnlyTransaction_runsOnPrimary_whenUserWroteWithinReadYourWritesWindow() {
+        readYourWritesTracker.recordWrite("Alex");
+
+        assertThat(readYourWritesTracker.beginRequest("Alex")).isTrue();
+        assertThat(applicationName(true)).isNotEqualTo(REPLICA_APPLICATION_NAME);
+        readYourWritesTracker.endRequest();
+
+        assertThat(readYourWritesTracker.beginRequest("Bob")).isFalse();
+        assertThat(applicationName(true)).isEqualTo(REPLICA_APPLICATION_NAME);
+    }
+
+    @Test
+    void propagate_routesTaskOfAnotherThreadToPrimary_whenRequestWasRoutedToPrimary() throws Exception {
+        readYourWritesTracker.recordWrite("Alex");
+        assertThat(readYourWritesTracker.beginRequest("Alex")).isTrue();
+        var task = new FutureTask<>(() -> applicationName(true));
+        Runnable propagated = readYourWritesTracker.propagate(task);
+        readYourWritesTracker.endRequest();
+
+        Thread.ofPlatform().start(propagated).join();
+
+        assertThat(task.get()).isNotEqualTo(REPLICA_APPLICATION_NAME);
+        assertThat(applicationName(true)).isEqualTo(REPLICA_APPLICATION_NAME);
+    }
+
+    @Test
+    void getConnectionWithCredentials_delegatesToPool_andKeepsReplicaHealthy() {
+        // Hikari выдает соединения только с учетными данными пула
+        assertThatThrownBy(() -> replicaDataSource.getConnection("user", "password"))
+                .isInstanceOf(SQLFeatureNotSupportedException.class);
+        assertThat(replicaDataSource.healthyCount()).isEqualTo(1);
+    }
+
+    @Test
+    void getConnection_fallsBackToPrimary_whenNoReplicaIsHealthy() throws SQLException {
+        var config = new HikariConfig();
+        config.setJdbcUrl("jdbc:postgresql://localhost:1/unavailable");
+        config.setPoolName("unavailable-replica");
+        config.setConnectionTimeout(250);
+        config.setInitializationFailTimeout(-1);
+        try (var unavailable = new ReplicaDataSource(primaryDataSource, List.of(new HikariDataSource(config)),
+                new ReadYourWritesTracker(Duration.ZERO), Duration.ofSeconds(10));
+             var connection = unavailable.getConnection();
+             var statement = connection.createStatement();
+             var rs = statement.executeQuery(APPLICATION_NAME_SQL)) {
+            assertThat(unavailable.healthyCount()).isZero();
+            rs.next();
+            assertThat(rs.getString(1)).isNotEqualTo(REPLICA_APPLICATION_NAME);
+        }
+    }
+
+    private String applicationName(boolean readOnly) {
+        var transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status -> jdbcTemplate.queryForObject(APPLICATION_NAME_SQL, String.class));
+    }
+}
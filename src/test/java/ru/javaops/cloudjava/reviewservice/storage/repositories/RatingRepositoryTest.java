@@ -71,6 +71,35 @@ public class RatingRepositoryTest extends BaseTest {
         assertRatesEqual(actualRating, expectedRating);
     }
 
+    @Test
+    void upsertRating_incrementsRatingCorrectlyForConcurrentRequestsToHotMenu() throws Exception {
+        Rating expectedRating = ratingMenuOne();
+        upsertConcurrently(MENU_ONE, 500);
+
+        incrementExpectedRating(expectedRating, 100, 100, 100, 100, 100);
+        assertRatesEqual(ratingRepository.findByMenuId(MENU_ONE).get(), expectedRating);
+        compareMenuInfo(expectedRating, ratingRepository.findRatingInfoByMenuId(MENU_ONE).get());
+    }
+
+    @Test
+    void upsertRating_createsRatingOnce_whenConcurrentRequestsRateMenuWithoutRating() throws Exception {
+        upsertConcurrently(MENU_UNKNOWN, 100);
+
+        Rating expectedRating = newRating(MENU_UNKNOWN, 20, 20, 20, 20, 20);
+        assertRatesEqual(ratingRepository.findByMenuId(MENU_UNKNOWN).get(), expectedRating);
+        compareMenuInfo(expectedRating, ratingRepository.findRatingInfoByMenuId(MENU_UNKNOWN).get());
+    }
+
+    @Test
+    void upsertRating_incrementsOnlyTargetedRate() {
+        Rating expectedRating = ratingMenuTwo();
+        ratingRepository.upsertRating(MENU_TWO, 3);
+
+        incrementExpectedRating(expectedRating, 0, 0, 1, 0, 0);
+        assertRatesEqual(ratingRepository.findByMenuId(MENU_TWO).get(), expectedRating);
+        compareMenuInfo(expectedRating, ratingRepository.findRatingInfoByMenuId(MENU_TWO).get());
+    }
+
     @Test
     void insertNoConflict_succeeds_whenOneTransactionCommitsAndOneRollsBack() throws Exception {
         Long menuId = MENU_UNKNOWN;
@@ -284,6 +313,23 @@ public class RatingRepositoryTest extends BaseTest {
         assertRatesEqual(updated, ratingMenuOne);
     }
 
+    private void upsertConcurrently(Long menuId, int requests) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(12);
+        List<Callable<Void>> upserts = new ArrayList<>();
+        for (int i = 1; i <= requests; i++) {
+            final int rate = (i % 5 == 0) ? 5 : i % 5;
+            upserts.add(() -> {
+                ratingRepository.upsertRating(menuId, rate);
+                return null;
+            });
+        }
+        var results = executor.invokeAll(upserts);
+        executor.shutdown();
+        for (var result : results) {
+            assertDoesNotThrow(() -> result.get());
+        }
+    }
+
     private void printWilsonScoreAndAvgStars(List<MenuRatingInfo> ratings) {
         ratings.forEach(r -> {
             System.out.println("Wilson Score: " + r.getWilsonScore());
@@ -0,0 +1,210 @@
+package ru.javaops.cloudjava.reviewservice.storage.repositories;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.javaops.cloudjava.reviewservice.BaseTest;
+import ru.javaops.cloudjava.reviewservice.dto.SortBy;
+import ru.javaops.cloudjava.reviewservice.testutil.SqlCapturingInspector;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static ru.javaops.cloudjava.reviewservice.testutil.TestConstants.*;
+
+/**
+ * Проверяет планы запросов репозиториев. Последовательное чтение и сортировка запрещаются планировщику,
+ * поэтому Seq Scan или Sort в плане означают, что для запроса нет подходящего индекса.
+ * Merge Append объединяет упорядоченные индексом строки секций reviews без сортировки.
+ * Планы строятся обобщенными (plan_cache_mode = force_generic_plan), чтобы не зависеть от значений параметров.
+ * Отсечение секций проверяется по плану с конкретными значениями параметров.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "ru.javaops.cloudjava.reviewservice.testutil.SqlCapturingInspector")
+@Transactional(propagation = Propagation.NEVER)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class RepositoryQueryPlanTest extends BaseTest {
+
+    private static final LocalDateTime CURSOR_DATE = REVIEW_DATE_MENU_6;
+    private static final Long CURSOR_ID = 1L;
+    private static final Pattern PARTITION = Pattern.compile(" on (reviews_p\\d+)\\b");
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void reviewRepository_pageQueries_useIndexOrderWithoutSeqScanAndSort() {
+        for (SortBy sort : SortBy.values()) {
+            var pageable = PageRequest.of(1, 2, sort.getSort());
+            assertIndexedWithoutSort(() -> reviewRepository.findAllByMenuId(MENU_TEN, pageable));
+            assertIndexedWithoutSort(() -> reviewRepository.findAllByCreatedBy(USER_NAME, pageable));
+        }
+    }
+
+    @Test
+    void reviewRepository_seekQueries_useIndexOrderWithoutSeqScanAndSort() {
+        assertIndexedWithoutSort(() -> reviewRepository.findAllByMenuIdAfter(MENU_TEN, CURSOR_DATE, CURSOR_ID, 2));
+        assertIndexedWithoutSort(() -> reviewRepository.findAllByMenuIdBefore(MENU_TEN, CURSOR_DATE, CURSOR_ID, 2));
+        assertIndexedWithoutSort(() -> reviewRepository.findAllByCreatedByAfter(USER_NAME, CURSOR_DATE, CURSOR_ID, 2));
+        assertIndexedWithoutSort(() -> reviewRepository.findAllByCreatedByBefore(USER_NAME, CURSOR_DATE, CURSOR_ID, 2));
+    }
+
+    @Test
+    void reviewRepository_menuQueries_scanSinglePartition() {
+        for (SortBy sort : SortBy.values()) {
+            var pageable = PageRequest.of(1, 2, sort.getSort());
+            assertSinglePartition(() -> reviewRepository.findAllByMenuId(MENU_TEN, pageable));
+        }
+        assertSinglePartition(() -> reviewRepository.findAllByMenuIdAfter(MENU_TEN, CURSOR_DATE, CURSOR_ID, 2));
+        assertSinglePartition(() -> reviewRepository.findAllByMenuIdBefore(MENU_TEN, CURSOR_DATE, CURSOR_ID, 2));
+    }
+
+    @Test
+    void reviewRepository_findById_usesIndex() {
+        assertIndexedWithoutSort(() -> reviewRepository.findById(CURSOR_ID));
+    }
+
+    @Test
+    void reviewRepository_batchInsert_usesIndexWithoutSeqScan() {
+        assertThat(plan(ReviewRepositoryCustomImpl.INSERT_SKIPPING_CONFLICTS_SQL))
+                .noneMatch(line -> line.contains("Seq Scan"));
+    }
+
+    @Test
+    void ratingRepository_queries_useIndexWithoutSeqScanAndSort() {
+        assertIndexedWithoutSort(() -> ratingRepository.findRatingInfoByMenuId(MENU_ONE));
+        assertIndexedWithoutSort(() -> ratingRepository.findRatingInfosByMenuIdIn(Set.of(MENU_ONE, MENU_TWO, MENU_TEN)));
+        assertIndexedWithoutSort(() -> ratingRepository.findByMenuId(MENU_ONE));
+        assertIndexedWithoutSort(() -> ratingRepository.insertNoConflict(MENU_ONE));
+        assertThat(plan(RatingRepositoryCustomImpl.RATING_CHANGES_SQL))
+                .noneMatch(line -> line.contains("Seq Scan"))
+                .noneMatch(RepositoryQueryPlanTest::isSortNode);
+    }
+
+    @Test
+    void ratingRepository_writeStatements_useIndexWithoutSeqScan() {
+        assertThat(plan(NamedParameterUtils.parseSqlStatementIntoString(RatingRepositoryCustomImpl.INCREMENT_RATING_SQL)))
+                .noneMatch(line -> line.contains("Seq Scan"));
+        assertThat(plan(RatingRepositoryCustomImpl.APPLY_INCREMENTS_SQL))
+                .noneMatch(line -> line.contains("Seq Scan"));
+        assertThat(RatingRepositoryCustomImpl.UPSERT_RATING_SQL)
+                .allSatisfy(sql -> assertThat(plan(sql)).noneMatch(line -> line.contains("Seq Scan")));
+        // пересчет сортирует только уже агрегированные строки блюд, поэтому проверяется лишь доступ к таблицам
+        assertThat(plan(RatingRepositoryCustomImpl.RECALCULATE_REVIEWED_SINCE_SQL))
+                .noneMatch(line -> line.contains("Seq Scan"));
+    }
+
+    private void assertIndexedWithoutSort(Runnable query) {
+        SqlCapturingInspector.clear();
+        query.run();
+        String sql = SqlCapturingInspector.lastStatement();
+        assertThat(plan(sql))
+                .as("Plan of %s", sql)
+                .noneMatch(line -> line.contains("Seq Scan"))
+                .noneMatch(RepositoryQueryPlanTest::isSortNode);
+    }
+
+    private void assertSinglePartition(Runnable query) {
+        SqlCapturingInspector.clear();
+        query.run();
+        String sql = SqlCapturingInspector.lastStatement();
+        List<String> plan = customPlan(sql);
+        assertThat(plan.stream()
+                .map(PARTITION::matcher)
+                .filter(Matcher::find)
+                .map(matcher -> matcher.group(1))
+                .distinct())
+                .as("Partitions in plan of %s: %s", sql, plan)
+                .hasSize(1);
+        assertThat(plan)
+                .as("Plan of %s", sql)
+                .noneMatch(line -> line.contains("Seq Scan"))
+                .noneMatch(RepositoryQueryPlanTest::isSortNode);
+    }
+
+    private static boolean isSortNode(String line) {
+        // строка узла Sort, а не его свойство Sort Key, которое есть и у Merge Append
+        return line.trim().replaceFirst("^->\\s*", "").matches("(Incremental )?Sort\\s+\\(.*");
+    }
+
+    private List<String> plan(String sql) {
+        long parameters = sql.chars().filter(c -> c == '?').count();
+        var arguments = new StringJoiner(", ", "(", ")").setEmptyValue("");
+        for (int i = 0; i < parameters; i++) {
+            arguments.add("NULL");
+        }
+        var transactionTemplate = new TransactionTemplate(transactionManager);
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+            jdbcTemplate.execute("SET LOCAL enable_sort = off");
+            jdbcTemplate.execute("SET LOCAL plan_cache_mode = force_generic_plan");
+            jdbcTemplate.execute("PREPARE plan_check AS " + positional(sql));
+            try {
+                return jdbcTemplate.queryForList("EXPLAIN EXECUTE plan_check" + arguments, String.class);
+            } finally {
+                jdbcTemplate.execute("DEALLOCATE plan_check");
+            }
+        });
+    }
+
+    /**
+     * План с конкретными значениями параметров, подобранными по их типам: планировщик отсекает секции
+     * еще при построении плана, и в нем остаются только читаемые секции.
+     */
+    private List<String> customPlan(String sql) {
+        var transactionTemplate = new TransactionTemplate(transactionManager);
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+            jdbcTemplate.execute("SET LOCAL enable_sort = off");
+            jdbcTemplate.execute("SET LOCAL plan_cache_mode = force_custom_plan");
+            jdbcTemplate.execute("PREPARE plan_check AS " + positional(sql));
+            try {
+                String[] types = jdbcTemplate.queryForObject(
+                        "SELECT parameter_types::text[] FROM pg_prepared_statements WHERE name = 'plan_check'",
+                        (rs, rowNum) -> (String[]) rs.getArray(1).getArray());
+                var arguments = new StringJoiner(", ", "(", ")").setEmptyValue("");
+                for (String type : types) {
+                    arguments.add(switch (type) {
+                        case "bigint", "integer" -> MENU_TEN.toString();
+                        case "timestamp without time zone" -> "LOCALTIMESTAMP";
+                        case "text", "character varying" -> "'" + USER_NAME + "'";
+                        default -> "NULL";
+                    });
+                }
+                return jdbcTemplate.queryForList("EXPLAIN EXECUTE plan_check" + arguments, String.class);
+            } finally {
+                jdbcTemplate.execute("DEALLOCATE plan_check");
+            }
+        });
+    }
+
+    private static String positional(String sql) {
+        int parameters = 0;
+        var positional = new StringBuilder();
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                positional.append('$').append(++parameters);
+            } else {
+                positional.append(c);
+            }
+        }
+        return positional.toString();
+    }
+}
@@ -0,0 +1,30 @@
+package ru.javaops.cloudjava.reviewservice.testutil;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Запоминает SQL, который Hibernate отправляет в БД, чтобы тесты могли проверить план его выполнения.
+ */
+public class SqlCapturingInspector implements StatementInspector {
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.add(sql);
+        return sql;
+    }
+
+    public static void clear() {
+        STATEMENTS.clear();
+    }
+
+    public static String lastStatement() {
+        if (STATEMENTS.isEmpty()) {
+            throw new IllegalStateException("No SQL statements were captured");
+        }
+        return STATEMENTS.get(STATEMENTS.size() - 1);
+    }
+}
@@ -1,5 +1,6 @@
 package ru.javaops.cloudjava.reviewservice.testutil;
 
+import ru.javaops.cloudjava.reviewservice.dto.BatchReviewItem;
 import ru.javaops.cloudjava.reviewservice.dto.CreateReviewRequest;
 import ru.javaops.cloudjava.reviewservice.storage.model.Rating;
 
@@ -57,4 +58,13 @@ public class TestData {
                 .rate(rate)
                 .build();
     }
+
+    public static BatchReviewItem batchReviewItem(Long menuId, String createdBy, Integer rate) {
+        return BatchReviewItem.builder()
+                .menuId(menuId)
+                .createdBy(createdBy)
+                .comment("This is a comment")
+                .rate(rate)
+                .build();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+package ru.javaops.cloudjava.reviewservice.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.javaops.cloudjava.reviewservice.BaseIntegrationTest;
+
+import java.util.Map;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static ru.javaops.cloudjava.reviewservice.util.RatingCalculator.avgStarsSql;
+import static ru.javaops.cloudjava.reviewservice.util.RatingCalculator.wilsonScoreSql;
+
+class RatingCalculatorTest extends BaseIntegrationTest {
+
+    // формула из функции calculate_wilson_score(), которую вызывал триггер trigger_update_wilson_score
+    private static final String PARITY_SQL = """
+            SELECT one, two, three, four, five,
+                   CASE WHEN positive + negative > 0 THEN (
+                       (positive + 1.9208) / (positive + negative) -
+                       1.96 * SQRT((positive * negative) / (positive + negative) + 0.9604) / (positive + negative)
+                   ) / (1 + 3.8416 / (positive + negative)) ELSE 0 END AS trigger_wilson_score,
+                   CASE WHEN positive + negative > 0 THEN
+                       CAST(ROUND(CAST((((positive / total) * 4) + 1) * 2 AS NUMERIC), 2) / 2 AS FLOAT)
+                   ELSE 0 END AS trigger_avg_stars,
+                   %s AS wilson_score,
+                   %s AS avg_stars
+            FROM (
+                SELECT one, two, three, four, five,
+                       CAST((five * 1.0) + (four * 0.75) + (three * 0.5) + (two * 0.25) + (one * 0.0) AS FLOAT) AS positive,
+                       CAST((five * 0.0) + (four * 0.25) + (three * 0.5) + (two * 0.75) + (one * 1.0) AS FLOAT) AS negative,
+                       one + two + three + four + five AS total
+                FROM (
+                    SELECT one, two, three, four, five
+                    FROM generate_series(0, 4) one, generate_series(0, 4) two, generate_series(0, 4) three,
+                         generate_series(0, 4) four, generate_series(0, 4) five
+                    UNION ALL
+                    VALUES (1, 0, 3, 120, 1534),
+                           (10000, 2000, 300, 40, 5),
+                           (0, 0, 0, 0, 1000000),
+                           (7, 13, 29, 61, 127),
+                           (333, 333, 334, 333, 333)
+                ) counts
+            ) grid
+            """.formatted(
+            wilsonScoreSql("one", "two", "three", "four", "five"),
+            avgStarsSql("one", "two", "three", "four", "five"));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void javaAndSqlFormulas_matchTriggerFormula() {
+        var rows = jdbcTemplate.queryForList(PARITY_SQL);
+        assertThat(rows).hasSize(5 * 5 * 5 * 5 * 5 + 5);
+
+        for (Map<String, Object> row : rows) {
+            long one = ((Number) row.get("one")).longValue();
+            long two = ((Number) row.get("two")).longValue();
+            long three = ((Number) row.get("three")).longValue();
+            long four = ((Number) row.get("four")).longValue();
+            long five = ((Number) row.get("five")).longValue();
+            double triggerWilsonScore = ((Number) row.get("trigger_wilson_score")).doubleValue();
+            double triggerAvgStars = ((Number) row.get("trigger_avg_stars")).doubleValue();
+
+            assertThat(RatingCalculator.wilsonScore(one, two, three, four, five))
+                    .as("Java wilson score for %s", row)
+                    .isEqualTo(triggerWilsonScore);
+            assertThat(RatingCalculator.avgStars(one, two, three, four, five))
+                    .as("Java avg stars for %s", row)
+                    .isEqualTo(triggerAvgStars);
+            assertThat(((Number) row.get("wilson_score")).doubleValue())
+                    .as("SQL wilson score for %s", row)
+                    .isEqualTo(triggerWilsonScore);
+            assertThat(((Number) row.get("avg_stars")).doubleValue())
+                    .as("SQL avg stars for %s", row)
+                    .isEqualTo(triggerAvgStars);
+        }
+    }
+}
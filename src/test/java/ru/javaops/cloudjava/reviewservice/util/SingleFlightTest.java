@@ -0,0 +1,142 @@
+package ru.javaops.cloudjava.reviewservice.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+
+class SingleFlightTest {
+    private static final int CALLERS = 16;
+
+    @Test
+    void execute_sharesOneLoadBetweenConcurrentCallers() throws Exception {
+        var flight = new SingleFlight<Long, String>("test");
+        var loads = new AtomicInteger();
+        var release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(() -> flight.execute(1L, () -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    return "rating";
+                })));
+            }
+            // отпускаем загрузку, когда все остальные вызовы уже ждут ее результата
+            while (flight.coalescedCount() < CALLERS - 1) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            for (var result : results) {
+                assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo("rating");
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(flight.executionCount()).isEqualTo(1);
+        assertThat(flight.coalescedCount()).isEqualTo(CALLERS - 1);
+    }
+
+    @Test
+    void execute_loadsAgain_afterPreviousLoadCompleted() {
+        var flight = new SingleFlight<Long, Integer>("test");
+        var loads = new AtomicInteger();
+
+        flight.execute(1L, loads::incrementAndGet);
+        flight.execute(1L, loads::incrementAndGet);
+        flight.execute(2L, loads::incrementAndGet);
+
+        assertThat(loads.get()).isEqualTo(3);
+        assertThat(flight.coalescedCount()).isZero();
+    }
+
+    @Test
+    void execute_rethrowsLoadFailure_toWaitingCallers() throws Exception {
+        var flight = new SingleFlight<Long, String>("test");
+        var release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            var leader = executor.submit(() -> flight.execute(1L, () -> {
+                await(release);
+                throw new IllegalStateException("DB is down");
+            }));
+            while (flight.executionCount() < 1) {
+                Thread.onSpinWait();
+            }
+            var follower = executor.submit(() -> flight.execute(1L, () -> "unexpected"));
+            while (flight.coalescedCount() < 1) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertThatThrownBy(() -> leader.get(10, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+            assertThatThrownBy(() -> follower.get(10, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(IllegalStateException.class)
+                    .hasRootCauseMessage("DB is down");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void execute_doesNotShareReplicaLoad_withCallerRequiringPrimary() throws Exception {
+        var primaryRequired = ThreadLocal.withInitial(() -> false);
+        var flight = new SingleFlight<Long, String>("test", primaryRequired::get);
+        var release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(1);
+        try {
+            var replicaLoad = executor.submit(() -> flight.execute(1L, () -> {
+                await(release);
+                return "replica";
+            }));
+            while (flight.executionCount() < 1) {
+                Thread.onSpinWait();
+            }
+            primaryRequired.set(true);
+            assertThat(flight.execute(1L, () -> "primary")).isEqualTo("primary");
+            release.countDown();
+
+            assertThat(replicaLoad.get(10, TimeUnit.SECONDS)).isEqualTo("replica");
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(flight.executionCount()).isEqualTo(2);
+        assertThat(flight.coalescedCount()).isZero();
+    }
+
+    @Test
+    void bindTo_registersExecutedAndCoalescedCounters() {
+        var flight = new SingleFlight<Long, Integer>("menuRating");
+        var registry = new SimpleMeterRegistry();
+        flight.bindTo(registry);
+
+        flight.execute(1L, () -> 1);
+
+        assertThat(registry.get("singleflight.calls").tags("name", "menuRating", "result", "executed")
+                .functionCounter().count()).isEqualTo(1.0);
+        assertThat(registry.get("singleflight.calls").tags("name", "menuRating", "result", "coalesced")
+                .functionCounter().count()).isZero();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,2 +1,3 @@
 delete from ratings;
-delete from reviews;
\ No newline at end of file
+delete from reviews;
+delete from rating_outbox;
@@ -26,4 +26,18 @@ UPDATE ratings SET rate_five = rate_five + 1 WHERE menu_id = 4;
 UPDATE ratings SET rate_four = rate_four + 1 WHERE menu_id = 5;
 UPDATE ratings SET rate_three = rate_three + 1 WHERE menu_id = 6;
 UPDATE ratings SET rate_two = rate_two + 1 WHERE menu_id = 7;
-UPDATE ratings SET rate_one = rate_one + 1 WHERE menu_id = 8;
\ No newline at end of file
+UPDATE ratings SET rate_one = rate_one + 1 WHERE menu_id = 8;
+UPDATE ratings
+SET wilson_score = (
+        (positive + 1.9208) / (positive + negative) -
+        1.96 * SQRT((positive * negative) / (positive + negative) + 0.9604) / (positive + negative)
+    ) / (1 + 3.8416 / (positive + negative)),
+    avg_stars = ROUND(CAST((((positive / total) * 4) + 1) * 2 AS NUMERIC), 2) / 2
+FROM (
+    SELECT menu_id AS counted_menu_id,
+           CAST((rate_five * 1.0) + (rate_four * 0.75) + (rate_three * 0.5) + (rate_two * 0.25) + (rate_one * 0.0) AS FLOAT) AS positive,
+           CAST((rate_five * 0.0) + (rate_four * 0.25) + (rate_three * 0.5) + (rate_two * 0.75) + (rate_one * 1.0) AS FLOAT) AS negative,
+           rate_one + rate_two + rate_three + rate_four + rate_five AS total
+    FROM ratings
+) counts
+WHERE menu_id = counted_menu_id AND total > 0;